@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rocks.spud.grid.api.ErrorCode;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the conversion between {@link rocks.spud.grid.api.ErrorCode} masks and sets.
+ *
+ * @author Johannes Donath
+ */
+@State (Scope.Thread)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class ErrorCodeBenchmark {
+        private int successMask = ErrorCode.of (ErrorCode.SUCCESS);
+        private int errorMask = ErrorCode.of (ErrorCode.NO_SUCH_CHANNEL, ErrorCode.SUBSCRIBED);
+        private ErrorCode[] errorCodes = new ErrorCode[] {ErrorCode.NO_SUCH_CHANNEL, ErrorCode.SUBSCRIBED};
+
+        @Benchmark
+        public Set<ErrorCode> ofSuccessMask () {
+                return ErrorCode.of (this.successMask);
+        }
+
+        @Benchmark
+        public Set<ErrorCode> ofErrorMask () {
+                return ErrorCode.of (this.errorMask);
+        }
+
+        @Benchmark
+        public int ofCodes () {
+                return ErrorCode.of (this.errorCodes);
+        }
+}
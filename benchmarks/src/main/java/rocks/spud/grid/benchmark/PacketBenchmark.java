@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rocks.spud.grid.util.Packet;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of encoding and decoding the primitive types supported by {@link rocks.spud.grid.util.Packet}.
+ *
+ * Write benchmarks follow the same pattern as the plugins (size computation, exact allocation, encoding and array
+ * retrieval) while read benchmarks wrap a previously encoded array just like an incoming plugin message.
+ *
+ * @author Johannes Donath
+ */
+@State (Scope.Thread)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class PacketBenchmark {
+        public static final String ASCII_STRING = "Hello World! This is a fairly average chat message.";
+        public static final String MULTI_BYTE_STRING = "Grüße aus München! 你好，世界 🌍";
+
+        private UUID uuid;
+        private boolean[] booleanArray;
+        private byte[] byteArray;
+
+        private byte[] encodedUUID;
+        private byte[] encodedAsciiString;
+        private byte[] encodedMultiByteString;
+        private byte[] encodedBooleanArray;
+        private byte[] encodedByteArray;
+
+        @Setup
+        public void setup () {
+                Random random = new Random (42);
+
+                this.uuid = new UUID (random.nextLong (), random.nextLong ());
+
+                this.booleanArray = new boolean[20];
+                for (int i = 0; i < this.booleanArray.length; ++i) { this.booleanArray[i] = random.nextBoolean (); }
+
+                this.byteArray = new byte[128];
+                random.nextBytes (this.byteArray);
+
+                this.encodedUUID = this.writeUUID ();
+                this.encodedAsciiString = this.writeAsciiString ();
+                this.encodedMultiByteString = this.writeMultiByteString ();
+                this.encodedBooleanArray = this.writeBooleanArray ();
+                this.encodedByteArray = this.writeBytes ();
+        }
+
+        @Benchmark
+        public byte[] writeUUID () {
+                try (Packet packet = Packet.allocate (Packet.sizeOf (this.uuid))) {
+                        return packet.write (this.uuid).array ();
+                }
+        }
+
+        @Benchmark
+        public UUID readUUID () {
+                return Packet.wrap (this.encodedUUID).readUUID ();
+        }
+
+        @Benchmark
+        public byte[] writeAsciiString () {
+                try (Packet packet = Packet.allocate (Packet.sizeOf (ASCII_STRING))) {
+                        return packet.write (ASCII_STRING).array ();
+                }
+        }
+
+        @Benchmark
+        public String readAsciiString () {
+                return Packet.wrap (this.encodedAsciiString).readString ();
+        }
+
+        @Benchmark
+        public byte[] writeMultiByteString () {
+                try (Packet packet = Packet.allocate (Packet.sizeOf (MULTI_BYTE_STRING))) {
+                        return packet.write (MULTI_BYTE_STRING).array ();
+                }
+        }
+
+        @Benchmark
+        public String readMultiByteString () {
+                return Packet.wrap (this.encodedMultiByteString).readString ();
+        }
+
+        @Benchmark
+        public byte[] writeBooleanArray () {
+                try (Packet packet = Packet.allocate (Packet.sizeOf (this.booleanArray))) {
+                        return packet.write (this.booleanArray).array ();
+                }
+        }
+
+        @Benchmark
+        public boolean[] readBooleanArray () {
+                return Packet.wrap (this.encodedBooleanArray).readBooleanArray ();
+        }
+
+        @Benchmark
+        public byte[] writeBytes () {
+                try (Packet packet = Packet.allocate (Packet.sizeOf (this.byteArray))) {
+                        return packet.write (this.byteArray).array ();
+                }
+        }
+
+        @Benchmark
+        public byte[] readBytes () {
+                return Packet.wrap (this.encodedByteArray).readBytes ();
+        }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rocks.spud.grid.api.ErrorCode;
+import rocks.spud.grid.api.Operation;
+import rocks.spud.grid.api.Protocol;
+import rocks.spud.grid.message.ChannelSubscribeRequest;
+import rocks.spud.grid.message.ChannelSubscribeRequestCodec;
+import rocks.spud.grid.message.RequestHeader;
+import rocks.spud.grid.message.RequestHeaderCodec;
+import rocks.spud.grid.message.Response;
+import rocks.spud.grid.message.ResponseCodec;
+import rocks.spud.grid.util.Packet;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a complete {@link rocks.spud.grid.api.Operation#CHANNEL_SUBSCRIBE} round trip.
+ *
+ * The round trip mirrors the plugins: The server side encodes a request, the proxy decodes it and answers with a
+ * response which is decoded by the server side again.
+ *
+ * @author Johannes Donath
+ */
+@State (Scope.Thread)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class SubscribeBenchmark {
+        public static final String PLAYER = "Notch";
+        public static final String CHANNEL = "global";
+
+        private int requestID;
+        private byte[] encodedRequest;
+        private byte[] encodedResponse;
+
+        @Setup
+        public void setup () {
+                this.encodedRequest = this.encodeRequest ();
+                this.encodedResponse = encodeResponse (0, ErrorCode.of (ErrorCode.SUCCESS));
+        }
+
+        @Benchmark
+        public byte[] encodeRequest () {
+                ChannelSubscribeRequest request = new ChannelSubscribeRequest (PLAYER, CHANNEL);
+                RequestHeader header = new RequestHeader (Operation.CHANNEL_SUBSCRIBE.opcode (), this.requestID++);
+
+                // @formatter:off
+                try (Packet packet = ChannelSubscribeRequestCodec.encode (
+                                RequestHeaderCodec.encode (
+                                        Packet.allocate (Protocol.FRAME_HEADER_SIZE + RequestHeaderCodec.sizeOf (header) + ChannelSubscribeRequestCodec.sizeOf (request))
+                                                .write (Protocol.VERSION)
+                                                .write ((byte) 0),
+                                        header
+                                ),
+                                request
+                )) {
+                        return packet.array ();
+                }
+                // @formatter:on
+        }
+
+        @Benchmark
+        public ChannelSubscribeRequest decodeRequest () {
+                return decodeRequest (this.encodedRequest).request;
+        }
+
+        @Benchmark
+        public int[] decodeResponse () {
+                return decodeResponse (this.encodedResponse);
+        }
+
+        @Benchmark
+        public int[] roundTrip () {
+                DecodedRequest decoded = decodeRequest (this.encodeRequest ());
+                return decodeResponse (encodeResponse (decoded.header.getRequestID (), ErrorCode.of (ErrorCode.SUCCESS)));
+        }
+
+        /**
+         * Decodes a request in the same manner as the proxy.
+         *
+         * @param frame The encoded frame.
+         * @return The decoded header and request.
+         */
+        @Nonnull
+        private static DecodedRequest decodeRequest (@Nonnull byte[] frame) {
+                Packet packet = Packet.wrap (frame);
+
+                if (packet.readByte () != Protocol.VERSION) { throw new IllegalStateException ("Unexpected protocol revision"); }
+                packet.readByte ();
+
+                RequestHeader header = RequestHeaderCodec.decode (packet);
+                if (Operation.of (header.getOpcode ()) != Operation.CHANNEL_SUBSCRIBE) { throw new IllegalStateException ("Unexpected operation"); }
+
+                return (new DecodedRequest (header, ChannelSubscribeRequestCodec.decode (packet)));
+        }
+
+        /**
+         * Encodes a response in the same manner as the proxy.
+         *
+         * @param requestID The request identifier.
+         * @param result    The error mask.
+         * @return The encoded frame.
+         */
+        @Nonnull
+        private static byte[] encodeResponse (int requestID, int result) {
+                Response response = new Response (requestID, new int[] {result});
+
+                // @formatter:off
+                try (Packet packet = ResponseCodec.encode (
+                                Packet.allocate (Protocol.FRAME_HEADER_SIZE + ResponseCodec.sizeOf (response))
+                                        .write (Protocol.VERSION)
+                                        .write ((byte) 0),
+                                response
+                )) {
+                        return packet.array ();
+                }
+                // @formatter:on
+        }
+
+        /**
+         * Decodes a response in the same manner as the server side.
+         *
+         * @param frame The encoded frame.
+         * @return The error masks.
+         */
+        @Nonnull
+        private static int[] decodeResponse (@Nonnull byte[] frame) {
+                Packet packet = Packet.wrap (frame);
+
+                if (packet.readByte () != Protocol.VERSION) { throw new IllegalStateException ("Unexpected protocol revision"); }
+                packet.readByte ();
+
+                return ResponseCodec.decode (packet).getResults ();
+        }
+
+        /**
+         * Represents a decoded request.
+         */
+        private static final class DecodedRequest {
+                private final RequestHeader header;
+                private final ChannelSubscribeRequest request;
+
+                DecodedRequest (@Nonnull RequestHeader header, @Nonnull ChannelSubscribeRequest request) {
+                        this.header = header;
+                        this.request = request;
+                }
+        }
+}
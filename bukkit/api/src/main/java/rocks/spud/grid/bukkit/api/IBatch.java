@@ -0,0 +1,204 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bukkit.api;
+
+import org.bukkit.OfflinePlayer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+
+/**
+ * Collects multiple operations which are transmitted within a single plugin message and answered by a single response.
+ *
+ * Operations are executed in the order they have been added in. Batches are not thread safe and may only be sent
+ * once.
+ *
+ * @author Johannes Donath
+ */
+public interface IBatch {
+
+        /**
+         * Broadcasts a message to a set of channels.
+         *
+         * @param channelNames    The channel names.
+         * @param message         The message.
+         * @param callback        The success callback.
+         * @param failureCallback The failure callback.
+         * @return The {@link rocks.spud.grid.bukkit.api.IBatch} instance.
+         */
+        @Nonnull
+        IBatch broadcast (@Nonnull Collection<String> channelNames, @Nonnull String message, @Nullable IGrid.SuccessCallback callback, @Nullable IGrid.FailureCallback failureCallback);
+
+        /**
+         * Broadcasts a message to a set of channels.
+         *
+         * @param channelNames The channel names.
+         * @param message      The message.
+         * @return The {@link rocks.spud.grid.bukkit.api.IBatch} instance.
+         */
+        @Nonnull
+        IBatch broadcast (@Nonnull Collection<String> channelNames, @Nonnull String message);
+
+        /**
+         * Creates a temporary (non-permanent) channel.
+         *
+         * @param name            The channel name.
+         * @param callback        The success callback.
+         * @param failureCallback The failure callback.
+         * @return The {@link rocks.spud.grid.bukkit.api.IBatch} instance.
+         */
+        @Nonnull
+        IBatch createChannel (@Nonnull String name, @Nullable IGrid.SuccessCallback callback, @Nullable IGrid.FailureCallback failureCallback);
+
+        /**
+         * Creates a temporary (non-permanent) channel.
+         *
+         * @param name The channel name.
+         * @return The {@link rocks.spud.grid.bukkit.api.IBatch} instance.
+         */
+        @Nonnull
+        IBatch createChannel (@Nonnull String name);
+
+        /**
+         * Messages a channel.
+         *
+         * @param channelName     The channel name.
+         * @param message         The message.
+         * @param callback        The success callback.
+         * @param failureCallback The failure callback.
+         * @return The {@link rocks.spud.grid.bukkit.api.IBatch} instance.
+         */
+        @Nonnull
+        IBatch message (@Nonnull String channelName, @Nonnull String message, @Nullable IGrid.SuccessCallback callback, @Nullable IGrid.FailureCallback failureCallback);
+
+        /**
+         * Messages a channel.
+         *
+         * @param channelName The channel name.
+         * @param message     The message.
+         * @return The {@link rocks.spud.grid.bukkit.api.IBatch} instance.
+         */
+        @Nonnull
+        IBatch message (@Nonnull String channelName, @Nonnull String message);
+
+        /**
+         * Removes a temporary (non-permanent) channel.
+         *
+         * @param name            The channel name.
+         * @param callback        The success callback.
+         * @param failureCallback The failure callback.
+         * @return The {@link rocks.spud.grid.bukkit.api.IBatch} instance.
+         */
+        @Nonnull
+        IBatch removeChannel (@Nonnull String name, @Nullable IGrid.SuccessCallback callback, @Nullable IGrid.FailureCallback failureCallback);
+
+        /**
+         * Removes a temporary (non-permanent) channel.
+         *
+         * @param name The channel name.
+         * @return The {@link rocks.spud.grid.bukkit.api.IBatch} instance.
+         */
+        @Nonnull
+        IBatch removeChannel (@Nonnull String name);
+
+        /**
+         * Sends all collected operations.
+         *
+         * Empty batches are silently discarded.
+         *
+         * @return The {@link rocks.spud.grid.bukkit.api.IGrid} instance which created this batch.
+         *
+         * @throws java.lang.IllegalStateException when the batch has already been sent or no players are available to
+         *                                         broadcast the command.
+         */
+        @Nonnull
+        IGrid send () throws IllegalStateException;
+
+        /**
+         * Retrieves the amount of operations within this batch.
+         *
+         * @return The amount of operations.
+         */
+        @Nonnegative
+        int size ();
+
+        /**
+         * Subscribes a player to a channel.
+         *
+         * @param playerName      The player name.
+         * @param channelName     The channel name.
+         * @param callback        The success callback.
+         * @param failureCallback The failure callback.
+         * @return The {@link rocks.spud.grid.bukkit.api.IBatch} instance.
+         */
+        @Nonnull
+        IBatch subscribe (@Nonnull String playerName, @Nonnull String channelName, @Nullable IGrid.SuccessCallback callback, @Nullable IGrid.FailureCallback failureCallback);
+
+        /**
+         * Subscribes a player to a channel.
+         *
+         * @param playerName  The player name.
+         * @param channelName The channel name.
+         * @return The {@link rocks.spud.grid.bukkit.api.IBatch} instance.
+         */
+        @Nonnull
+        IBatch subscribe (@Nonnull String playerName, @Nonnull String channelName);
+
+        /**
+         * Subscribes a player to a channel.
+         *
+         * @param player      The player.
+         * @param channelName The channel name.
+         * @return The {@link rocks.spud.grid.bukkit.api.IBatch} instance.
+         */
+        @Nonnull
+        IBatch subscribe (@Nonnull OfflinePlayer player, @Nonnull String channelName);
+
+        /**
+         * Un-Subscribes a player from a channel.
+         *
+         * @param playerName      The player name.
+         * @param channelName     The channel name.
+         * @param callback        The success callback.
+         * @param failureCallback The failure callback.
+         * @return The {@link rocks.spud.grid.bukkit.api.IBatch} instance.
+         */
+        @Nonnull
+        IBatch unsubscribe (@Nonnull String playerName, @Nonnull String channelName, @Nullable IGrid.SuccessCallback callback, @Nullable IGrid.FailureCallback failureCallback);
+
+        /**
+         * Un-Subscribes a player from a channel.
+         *
+         * @param playerName  The player name.
+         * @param channelName The channel name.
+         * @return The {@link rocks.spud.grid.bukkit.api.IBatch} instance.
+         */
+        @Nonnull
+        IBatch unsubscribe (@Nonnull String playerName, @Nonnull String channelName);
+
+        /**
+         * Un-Subscribes a player from a channel.
+         *
+         * @param player      The player.
+         * @param channelName The channel name.
+         * @return The {@link rocks.spud.grid.bukkit.api.IBatch} instance.
+         */
+        @Nonnull
+        IBatch unsubscribe (@Nonnull OfflinePlayer player, @Nonnull String channelName);
+}
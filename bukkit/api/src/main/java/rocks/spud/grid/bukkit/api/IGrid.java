@@ -21,6 +21,7 @@ import rocks.spud.grid.api.ErrorCode;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Collection;
 import java.util.Set;
 
 /**
@@ -30,6 +31,74 @@ import java.util.Set;
  */
 public interface IGrid {
 
+        /**
+         * Creates a new batch which transmits multiple operations within a single message.
+         *
+         * @return The empty batch.
+         */
+        @Nonnull
+        IBatch batch ();
+
+        /**
+         * Broadcasts a message to a set of channels.
+         *
+         * Players who are subscribed to more than one of the channels receive the message only once.
+         *
+         * @param channelNames    The channel names.
+         * @param message         The message.
+         * @param callback        The success callback.
+         * @param failureCallback The failure callback.
+         * @return The {@link rocks.spud.grid.bukkit.api.IGrid} instance.
+         *
+         * @throws java.lang.IllegalStateException when no players are available to broadcast the command.
+         */
+        @Nonnull
+        IGrid broadcast (@Nonnull Collection<String> channelNames, @Nonnull String message, @Nullable SuccessCallback callback, @Nullable FailureCallback failureCallback) throws IllegalStateException;
+
+        /**
+         * Broadcasts a message to a set of channels.
+         *
+         * Players who are subscribed to more than one of the channels receive the message only once.
+         *
+         * @param channelNames The channel names.
+         * @param message      The message.
+         * @param callback     The success callback.
+         * @return The {@link rocks.spud.grid.bukkit.api.IGrid} instance.
+         *
+         * @throws java.lang.IllegalStateException when no players are available to broadcast the command.
+         */
+        @Nonnull
+        IGrid broadcast (@Nonnull Collection<String> channelNames, @Nonnull String message, @Nullable SuccessCallback callback) throws IllegalStateException;
+
+        /**
+         * Broadcasts a message to a set of channels.
+         *
+         * Players who are subscribed to more than one of the channels receive the message only once.
+         *
+         * @param channelNames    The channel names.
+         * @param message         The message.
+         * @param failureCallback The failure callback.
+         * @return The {@link rocks.spud.grid.bukkit.api.IGrid} instance.
+         *
+         * @throws java.lang.IllegalStateException when no players are available to broadcast the command.
+         */
+        @Nonnull
+        IGrid broadcast (@Nonnull Collection<String> channelNames, @Nonnull String message, @Nullable FailureCallback failureCallback) throws IllegalStateException;
+
+        /**
+         * Broadcasts a message to a set of channels.
+         *
+         * Players who are subscribed to more than one of the channels receive the message only once.
+         *
+         * @param channelNames The channel names.
+         * @param message      The message.
+         * @return The {@link rocks.spud.grid.bukkit.api.IGrid} instance.
+         *
+         * @throws java.lang.IllegalStateException when no players are available to broadcast the command.
+         */
+        @Nonnull
+        IGrid broadcast (@Nonnull Collection<String> channelNames, @Nonnull String message) throws IllegalStateException;
+
         /**
          * Creates a temporary (non-permanent) channel.
          *
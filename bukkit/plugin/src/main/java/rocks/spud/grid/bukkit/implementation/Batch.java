@@ -0,0 +1,266 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bukkit.implementation;
+
+import io.netty.buffer.ByteBuf;
+import org.bukkit.OfflinePlayer;
+import rocks.spud.grid.api.Operation;
+import rocks.spud.grid.bukkit.api.IBatch;
+import rocks.spud.grid.bukkit.api.IGrid;
+import rocks.spud.grid.message.BatchHeader;
+import rocks.spud.grid.message.BatchHeaderCodec;
+import rocks.spud.grid.message.ChannelBroadcastRequest;
+import rocks.spud.grid.message.ChannelBroadcastRequestCodec;
+import rocks.spud.grid.message.ChannelCreateRequest;
+import rocks.spud.grid.message.ChannelCreateRequestCodec;
+import rocks.spud.grid.message.ChannelMessageRequest;
+import rocks.spud.grid.message.ChannelMessageRequestCodec;
+import rocks.spud.grid.message.ChannelRemoveRequest;
+import rocks.spud.grid.message.ChannelRemoveRequestCodec;
+import rocks.spud.grid.message.ChannelSubscribeRequest;
+import rocks.spud.grid.message.ChannelSubscribeRequestCodec;
+import rocks.spud.grid.message.ChannelUnsubscribeRequest;
+import rocks.spud.grid.message.ChannelUnsubscribeRequestCodec;
+import rocks.spud.grid.util.Packet;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Provides an implementation of {@link rocks.spud.grid.bukkit.api.IBatch}.
+ *
+ * Operations are encoded as soon as they are added to the batch. Sending the batch thus only involves prepending the
+ * request header and copying the collected payload into an exactly sized packet.
+ *
+ * @author Johannes Donath
+ */
+public class Batch implements IBatch {
+        private final Grid grid;
+        private final Packet payload = Packet.empty ();
+        private final List<IGrid.SuccessCallback> callbacks = new ArrayList<> ();
+        private final List<IGrid.FailureCallback> failureCallbacks = new ArrayList<> ();
+        private boolean sent;
+
+        Batch (@Nonnull Grid grid) {
+                this.grid = grid;
+        }
+
+        /**
+         * Encodes an operation into the batch payload and stores its callbacks.
+         *
+         * Callbacks are only registered once the operation has been encoded successfully. When encoding fails, the
+         * partially written operation is discarded in order to keep callbacks and operations aligned.
+         *
+         * @param operation       The operation.
+         * @param message         The request message.
+         * @param encoder         The message encoder.
+         * @param sizeOf          The message size function.
+         * @param callback        The success callback.
+         * @param failureCallback The failure callback.
+         * @param <M>             The message type.
+         * @return The {@link rocks.spud.grid.bukkit.api.IBatch} instance.
+         *
+         * @throws java.lang.IllegalStateException when the batch has already been sent.
+         */
+        @Nonnull
+        private <M> IBatch append (@Nonnull Operation operation, @Nonnull M message, @Nonnull BiFunction<Packet, M, Packet> encoder, @Nonnull ToIntFunction<M> sizeOf, @Nullable IGrid.SuccessCallback callback, @Nullable IGrid.FailureCallback failureCallback) throws IllegalStateException {
+                if (this.sent) { throw new IllegalStateException ("Batch has already been sent"); }
+
+                ByteBuf buffer = this.payload.buffer ();
+                int index = buffer.writerIndex ();
+
+                try {
+                        buffer.ensureWritable ((Byte.BYTES + sizeOf.applyAsInt (message)));
+                        encoder.apply (this.payload.write (operation.opcode ()), message);
+                } catch (RuntimeException ex) {
+                        buffer.writerIndex (index);
+                        throw ex;
+                }
+
+                this.callbacks.add (callback);
+                this.failureCallbacks.add (failureCallback);
+                return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IBatch broadcast (@Nonnull Collection<String> channelNames, @Nonnull String message, @Nullable IGrid.SuccessCallback callback, @Nullable IGrid.FailureCallback failureCallback) {
+                return this.append (Operation.CHANNEL_BROADCAST, new ChannelBroadcastRequest (channelNames.toArray (new String[channelNames.size ()]), message), ChannelBroadcastRequestCodec::encode, ChannelBroadcastRequestCodec::sizeOf, callback, failureCallback);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IBatch broadcast (@Nonnull Collection<String> channelNames, @Nonnull String message) {
+                return this.broadcast (channelNames, message, null, null);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IBatch createChannel (@Nonnull String name, @Nullable IGrid.SuccessCallback callback, @Nullable IGrid.FailureCallback failureCallback) {
+                return this.append (Operation.CHANNEL_CREATE, new ChannelCreateRequest (name), ChannelCreateRequestCodec::encode, ChannelCreateRequestCodec::sizeOf, callback, failureCallback);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IBatch createChannel (@Nonnull String name) {
+                return this.createChannel (name, null, null);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IBatch message (@Nonnull String channelName, @Nonnull String message, @Nullable IGrid.SuccessCallback callback, @Nullable IGrid.FailureCallback failureCallback) {
+                return this.append (Operation.CHANNEL_MESSAGE, new ChannelMessageRequest (channelName, message), ChannelMessageRequestCodec::encode, ChannelMessageRequestCodec::sizeOf, callback, failureCallback);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IBatch message (@Nonnull String channelName, @Nonnull String message) {
+                return this.message (channelName, message, null, null);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IBatch removeChannel (@Nonnull String name, @Nullable IGrid.SuccessCallback callback, @Nullable IGrid.FailureCallback failureCallback) {
+                return this.append (Operation.CHANNEL_REMOVE, new ChannelRemoveRequest (name), ChannelRemoveRequestCodec::encode, ChannelRemoveRequestCodec::sizeOf, callback, failureCallback);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IBatch removeChannel (@Nonnull String name) {
+                return this.removeChannel (name, null, null);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IGrid send () throws IllegalStateException {
+                if (this.sent) { throw new IllegalStateException ("Batch has already been sent"); }
+                this.sent = true;
+
+                if (this.size () == 0) { return this.grid; }
+
+                BatchHeader header = new BatchHeader (this.size ());
+                int requestID = this.grid.storeCallbacks (this.callbacks.toArray (new IGrid.SuccessCallback[this.size ()]), this.failureCallbacks.toArray (new IGrid.FailureCallback[this.size ()]));
+
+                // @formatter:off
+                Packet packet = BatchHeaderCodec.encode (
+                        this.grid.createRequest (Operation.BATCH, requestID, BatchHeaderCodec.sizeOf (header) + this.payload.buffer ().readableBytes ()),
+                        header
+                );
+                // @formatter:on
+
+                packet.buffer ().writeBytes (this.payload.buffer ());
+                this.grid.sendPacket (packet);
+
+                return this.grid;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnegative
+        @Override
+        public int size () {
+                return this.callbacks.size ();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IBatch subscribe (@Nonnull String playerName, @Nonnull String channelName, @Nullable IGrid.SuccessCallback callback, @Nullable IGrid.FailureCallback failureCallback) {
+                return this.append (Operation.CHANNEL_SUBSCRIBE, new ChannelSubscribeRequest (playerName, channelName), ChannelSubscribeRequestCodec::encode, ChannelSubscribeRequestCodec::sizeOf, callback, failureCallback);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IBatch subscribe (@Nonnull String playerName, @Nonnull String channelName) {
+                return this.subscribe (playerName, channelName, null, null);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IBatch subscribe (@Nonnull OfflinePlayer player, @Nonnull String channelName) {
+                return this.subscribe (player.getName (), channelName, null, null);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IBatch unsubscribe (@Nonnull String playerName, @Nonnull String channelName, @Nullable IGrid.SuccessCallback callback, @Nullable IGrid.FailureCallback failureCallback) {
+                return this.append (Operation.CHANNEL_UNSUBSCRIBE, new ChannelUnsubscribeRequest (playerName, channelName), ChannelUnsubscribeRequestCodec::encode, ChannelUnsubscribeRequestCodec::sizeOf, callback, failureCallback);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IBatch unsubscribe (@Nonnull String playerName, @Nonnull String channelName) {
+                return this.unsubscribe (playerName, channelName, null, null);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IBatch unsubscribe (@Nonnull OfflinePlayer player, @Nonnull String channelName) {
+                return this.unsubscribe (player.getName (), channelName, null, null);
+        }
+}
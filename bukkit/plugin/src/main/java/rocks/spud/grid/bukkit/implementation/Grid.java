@@ -20,13 +20,42 @@ import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.messaging.PluginMessageListener;
 import rocks.spud.grid.api.ErrorCode;
+import rocks.spud.grid.api.Operation;
+import rocks.spud.grid.api.Protocol;
 import rocks.spud.grid.bukkit.GridPlugin;
+import rocks.spud.grid.bukkit.api.IBatch;
 import rocks.spud.grid.bukkit.api.IGrid;
+import rocks.spud.grid.message.BatchHeaderCodec;
+import rocks.spud.grid.message.ChannelBroadcastRequest;
+import rocks.spud.grid.message.ChannelBroadcastRequestCodec;
+import rocks.spud.grid.message.ChannelCreateRequest;
+import rocks.spud.grid.message.ChannelCreateRequestCodec;
+import rocks.spud.grid.message.ChannelMessageRequest;
+import rocks.spud.grid.message.ChannelMessageRequestCodec;
+import rocks.spud.grid.message.ChannelRemoveRequest;
+import rocks.spud.grid.message.ChannelRemoveRequestCodec;
+import rocks.spud.grid.message.ChannelSubscribeRequest;
+import rocks.spud.grid.message.ChannelSubscribeRequestCodec;
+import rocks.spud.grid.message.ChannelUnsubscribeRequest;
+import rocks.spud.grid.message.ChannelUnsubscribeRequestCodec;
+import rocks.spud.grid.message.HandshakeRequest;
+import rocks.spud.grid.message.HandshakeRequestCodec;
+import rocks.spud.grid.message.RequestHeader;
+import rocks.spud.grid.message.RequestHeaderCodec;
+import rocks.spud.grid.message.Response;
+import rocks.spud.grid.message.ResponseCodec;
+import rocks.spud.grid.util.Compression;
 import rocks.spud.grid.util.Packet;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.*;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Provides an implementation of {@link rocks.spud.grid.bukkit.api.IGrid}.
@@ -35,9 +64,12 @@ import java.util.*;
  */
 public class Grid implements IGrid, PluginMessageListener {
         public static final String CHANNEL_NAME = "BungeeCord|Grid";
+        public static final int COMPRESSION_THRESHOLD = Compression.DEFAULT_THRESHOLD;
 
-        private final Map<UUID, SuccessCallback> successCallbackMap = new HashMap<> ();
-        private final Map<UUID, FailureCallback> failureCallbackMap = new HashMap<> ();
+        private final AtomicInteger requestCounter = new AtomicInteger ();
+        private final Map<Integer, PendingRequest> pendingRequestMap = new ConcurrentHashMap<> ();
+        private final AtomicBoolean handshake = new AtomicBoolean ();
+        private volatile boolean compression;
 
         private final GridPlugin plugin;
 
@@ -45,19 +77,80 @@ public class Grid implements IGrid, PluginMessageListener {
                 this.plugin = plugin;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IBatch batch () {
+                return (new Batch (this));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IGrid broadcast (@Nonnull Collection<String> channelNames, @Nonnull String message, @Nullable SuccessCallback callback, @Nullable FailureCallback failureCallback) throws IllegalStateException {
+                int requestID = this.storeCallback (callback, failureCallback);
+
+                ChannelBroadcastRequest request = new ChannelBroadcastRequest (channelNames.toArray (new String[channelNames.size ()]), message);
+
+                // @formatter:off
+                this.sendPacket (
+                        ChannelBroadcastRequestCodec.encode (
+                                this.createRequest (Operation.CHANNEL_BROADCAST, requestID, ChannelBroadcastRequestCodec.sizeOf (request)),
+                                request
+                        )
+                );
+                // @formatter:on
+
+                return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IGrid broadcast (@Nonnull Collection<String> channelNames, @Nonnull String message, @Nullable SuccessCallback callback) throws IllegalStateException {
+                return this.broadcast (channelNames, message, callback, null);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IGrid broadcast (@Nonnull Collection<String> channelNames, @Nonnull String message, @Nullable FailureCallback failureCallback) throws IllegalStateException {
+                return this.broadcast (channelNames, message, null, failureCallback);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public IGrid broadcast (@Nonnull Collection<String> channelNames, @Nonnull String message) throws IllegalStateException {
+                return this.broadcast (channelNames, message, null, null);
+        }
+
         /**
          * {@inheritDoc}
          */
         @Nonnull
         @Override
         public IGrid createChannel (@Nonnull String name, @Nullable SuccessCallback callback, @Nullable FailureCallback failureCallback) throws IllegalStateException {
+                int requestID = this.storeCallback (callback, failureCallback);
+
+                ChannelCreateRequest request = new ChannelCreateRequest (name);
+
                 // @formatter:off
                 this.sendPacket (
-                        Packet.empty ()
-                                .write (this.storeCallback (callback, failureCallback))
-                                .write ("Channel")
-                                .write ("Create")
-                                .write (name)
+                        ChannelCreateRequestCodec.encode (
+                                this.createRequest (Operation.CHANNEL_CREATE, requestID, ChannelCreateRequestCodec.sizeOf (request)),
+                                request
+                        )
                 );
                 // @formatter:on
 
@@ -92,17 +185,21 @@ public class Grid implements IGrid, PluginMessageListener {
         }
 
         /**
-         * Generates a unique request identifier.
+         * Generates a request identifier which is not in use by any pending request.
+         *
+         * Identifiers are handed out in ascending order and are restricted to 31 bits (in order to keep their VarInt
+         * representation short) thus wrapping around to zero once exhausted. Identifiers which are still in use at that
+         * point are skipped.
+         *
          * @return The identifier.
          */
-        @Nonnull
-        private UUID generateRequestIdentifier () {
-                UUID identifier;
+        @Nonnegative
+        private int generateRequestIdentifier () {
+                int identifier;
 
                 do {
-                        identifier = UUID.randomUUID ();
-                }
-                while (this.successCallbackMap.containsKey (identifier) || this.failureCallbackMap.containsKey (identifier));
+                        identifier = (this.requestCounter.getAndIncrement () & Integer.MAX_VALUE);
+                } while (this.pendingRequestMap.containsKey (identifier));
 
                 return identifier;
         }
@@ -121,20 +218,35 @@ public class Grid implements IGrid, PluginMessageListener {
                 return players.iterator ().next ();
         }
 
+        /**
+         * Negotiates the session parameters with the proxy.
+         * @param player The player to send the request through.
+         */
+        private void handshake (@Nonnull Player player) {
+                int requestID = this.storeCallback (() -> this.compression = true, (c) -> this.compression = false);
+                HandshakeRequest request = new HandshakeRequest (true);
+
+                try (Packet packet = HandshakeRequestCodec.encode (this.createRequest (Operation.SESSION_HANDSHAKE, requestID, HandshakeRequestCodec.sizeOf (request)), request)) {
+                        player.sendPluginMessage (this.plugin, CHANNEL_NAME, packet.array ());
+                }
+        }
+
         /**
          * {@inheritDoc}
          */
         @Nonnull
         @Override
         public IGrid message (@Nonnull String channelName, @Nonnull String message, @Nullable SuccessCallback callback, @Nullable FailureCallback failureCallback) throws IllegalStateException {
+                int requestID = this.storeCallback (callback, failureCallback);
+
+                ChannelMessageRequest request = new ChannelMessageRequest (channelName, message);
+
                 // @formatter:off
                 this.sendPacket (
-                        Packet.empty ()
-                              .write (this.storeCallback (callback, failureCallback))
-                              .write ("Channel")
-                              .write ("Message")
-                              .write (channelName)
-                              .write (message)
+                        ChannelMessageRequestCodec.encode (
+                                this.createRequest (Operation.CHANNEL_MESSAGE, requestID, ChannelMessageRequestCodec.sizeOf (request)),
+                                request
+                        )
                 );
                 // @formatter:on
 
@@ -174,16 +286,52 @@ public class Grid implements IGrid, PluginMessageListener {
         @Override
         public void onPluginMessageReceived (@Nonnull String channel, @Nonnull Player player, @Nonnull byte[] message) {
                 Packet packet = Packet.wrap (message);
-                UUID requestID = packet.readUUID ();
-                Set<ErrorCode> errorCodes = packet.readErrorCode ();
+                byte version = packet.readByte ();
 
-                if (ErrorCode.hasError (errorCodes)) {
-                        if (this.failureCallbackMap.containsKey (requestID)) {
-                                this.failureCallbackMap.get (requestID).accept (errorCodes);
+                if (version != Protocol.VERSION) {
+                        this.plugin.getLogger ().warning ("Dropping response encoded with unsupported protocol revision " + version + " (expected " + Protocol.VERSION + ")");
+                        return;
+                }
+
+                byte flags = packet.readByte ();
+
+                if ((flags & Protocol.FLAG_COMPRESSED) != 0) {
+                        try {
+                                packet = Compression.decompress (packet);
+                        } catch (IllegalStateException ex) {
+                                this.plugin.getLogger ().warning ("Dropping malformed response: " + ex.getMessage ());
+                                return;
                         }
-                } else if (this.successCallbackMap.containsKey (requestID)) {
-                        this.successCallbackMap.get (requestID).accept ();
                 }
+
+                if ((flags & Protocol.FLAG_BATCH) == 0) {
+                        this.complete (ResponseCodec.decode (packet));
+                        return;
+                }
+
+                // coalesced frames carry the responses to multiple (unrelated) requests
+                int count = BatchHeaderCodec.decode (packet).getCount ();
+
+                if (count < 0 || count > packet.buffer ().readableBytes ()) {
+                        this.plugin.getLogger ().warning ("Dropping malformed response: " + count + " responses exceed the remaining " + packet.buffer ().readableBytes () + " bytes");
+                        return;
+                }
+
+                for (int i = 0; i < count; i++) {
+                        this.complete (ResponseCodec.decode (packet));
+                }
+        }
+
+        /**
+         * Completes a pending request.
+         *
+         * @param response The response.
+         */
+        private void complete (@Nonnull Response response) {
+                PendingRequest request = this.pendingRequestMap.remove (response.getRequestID ());
+                if (request == null) { return; }
+
+                request.complete (response.getResults ());
         }
 
         /**
@@ -192,13 +340,16 @@ public class Grid implements IGrid, PluginMessageListener {
         @Nonnull
         @Override
         public IGrid removeChannel (@Nonnull String name, @Nullable SuccessCallback callback, @Nullable FailureCallback failureCallback) throws IllegalStateException {
+                int requestID = this.storeCallback (callback, failureCallback);
+
+                ChannelRemoveRequest request = new ChannelRemoveRequest (name);
+
                 // @formatter:off
                 this.sendPacket (
-                        Packet.empty ()
-                                .write (this.storeCallback (callback, failureCallback))
-                                .write ("Channel")
-                                .write ("Remove")
-                                .write (name)
+                        ChannelRemoveRequestCodec.encode (
+                                this.createRequest (Operation.CHANNEL_REMOVE, requestID, ChannelRemoveRequestCodec.sizeOf (request)),
+                                request
+                        )
                 );
                 // @formatter:on
 
@@ -233,12 +384,45 @@ public class Grid implements IGrid, PluginMessageListener {
         }
 
         /**
-         * Broadcasts a packet.
+         * Creates an exactly sized request packet and writes the frame header as well as the request header.
+         *
+         * @param operation   The operation.
+         * @param requestID   The request identifier.
+         * @param payloadSize The encoded size of the operation payload.
+         * @return The packet.
+         */
+        @Nonnull
+        Packet createRequest (@Nonnull Operation operation, int requestID, @Nonnegative int payloadSize) {
+                RequestHeader header = new RequestHeader (operation.opcode (), requestID);
+
+                // @formatter:off
+                return RequestHeaderCodec.encode (
+                        Packet.allocate (Protocol.FRAME_HEADER_SIZE + RequestHeaderCodec.sizeOf (header) + payloadSize)
+                                .write (Protocol.VERSION)
+                                .write ((byte) 0),
+                        header
+                );
+                // @formatter:on
+        }
+
+        /**
+         * Broadcasts a packet and releases it afterwards.
          * @param packet The packet.
          * @throws java.lang.IllegalStateException when no player is available to broadcast the command.
          */
-        private void sendPacket (@Nonnull Packet packet) throws IllegalStateException {
-                this.getFirstAvailablePlayer ().sendPluginMessage (this.plugin, CHANNEL_NAME, packet.array ());
+        void sendPacket (@Nonnull Packet packet) throws IllegalStateException {
+                try (Packet p = packet) {
+                        Player player = this.getFirstAvailablePlayer ();
+
+                        // the session is negotiated lazily as soon as the first request is sent since plugin messages
+                        // can only be delivered while players are connected
+                        if (!this.handshake.getAndSet (true)) { this.handshake (player); }
+
+                        byte[] frame = p.array ();
+                        if (this.compression) { frame = Compression.compress (frame, COMPRESSION_THRESHOLD); }
+
+                        player.sendPluginMessage (this.plugin, CHANNEL_NAME, frame);
+                }
         }
 
         /**
@@ -247,11 +431,35 @@ public class Grid implements IGrid, PluginMessageListener {
          * @param failureCallback The failure callback.
          * @return The identifier.
          */
-        @Nonnull
-        private UUID storeCallback (@Nullable SuccessCallback callback, @Nullable FailureCallback failureCallback) throws IllegalStateException {
-                UUID identifier = this.generateRequestIdentifier ();
-                if (callback != null) { this.successCallbackMap.put (identifier, callback); }
-                if (failureCallback != null) { this.failureCallbackMap.put (identifier, failureCallback); }
+        @Nonnegative
+        private int storeCallback (@Nullable SuccessCallback callback, @Nullable FailureCallback failureCallback) {
+                if (callback == null && failureCallback == null) { return this.generateRequestIdentifier (); }
+                return this.storeCallbacks (new SuccessCallback[] {callback}, new FailureCallback[] {failureCallback});
+        }
+
+        /**
+         * Generates a unique request identifier and stores the callbacks of all operations within a request (if any).
+         * @param callbacks The success callbacks (one per operation).
+         * @param failureCallbacks The failure callbacks (one per operation).
+         * @return The identifier.
+         */
+        @Nonnegative
+        int storeCallbacks (@Nonnull SuccessCallback[] callbacks, @Nonnull FailureCallback[] failureCallbacks) {
+                boolean empty = true;
+
+                for (int i = 0; i < callbacks.length && empty; i++) {
+                        empty = (callbacks[i] == null && failureCallbacks[i] == null);
+                }
+
+                if (empty) { return this.generateRequestIdentifier (); }
+
+                PendingRequest request = new PendingRequest (callbacks, failureCallbacks);
+                int identifier;
+
+                do {
+                        identifier = this.generateRequestIdentifier ();
+                } while (this.pendingRequestMap.putIfAbsent (identifier, request) != null);
+
                 return identifier;
         }
 
@@ -261,14 +469,16 @@ public class Grid implements IGrid, PluginMessageListener {
         @Nonnull
         @Override
         public IGrid subscribe (@Nonnull String playerName, @Nonnull String channelName, @Nullable SuccessCallback callback, @Nullable FailureCallback failureCallback) throws IllegalStateException {
+                int requestID = this.storeCallback (callback, failureCallback);
+
+                ChannelSubscribeRequest request = new ChannelSubscribeRequest (playerName, channelName);
+
                 // @formatter:off
                 this.sendPacket (
-                        Packet.empty ()
-                                .write (this.storeCallback (callback, failureCallback))
-                                .write ("Channel")
-                                .write ("Subscribe")
-                                .write (playerName)
-                                .write (channelName)
+                        ChannelSubscribeRequestCodec.encode (
+                                this.createRequest (Operation.CHANNEL_SUBSCRIBE, requestID, ChannelSubscribeRequestCodec.sizeOf (request)),
+                                request
+                        )
                 );
                 // @formatter:on
 
@@ -344,14 +554,16 @@ public class Grid implements IGrid, PluginMessageListener {
         @Nonnull
         @Override
         public IGrid unsubscribe (@Nonnull String playerName, @Nonnull String channelName, @Nullable SuccessCallback callback, @Nullable FailureCallback failureCallback) throws IllegalStateException {
+                int requestID = this.storeCallback (callback, failureCallback);
+
+                ChannelUnsubscribeRequest request = new ChannelUnsubscribeRequest (playerName, channelName);
+
                 // @formatter:off
                 this.sendPacket (
-                        Packet.empty ()
-                                .write (this.storeCallback (callback, failureCallback))
-                                .write ("Channel")
-                                .write ("Unsubscribe")
-                                .write (playerName)
-                                .write (channelName)
+                        ChannelUnsubscribeRequestCodec.encode (
+                                this.createRequest (Operation.CHANNEL_UNSUBSCRIBE, requestID, ChannelUnsubscribeRequestCodec.sizeOf (request)),
+                                request
+                        )
                 );
                 // @formatter:on
 
@@ -420,4 +632,34 @@ public class Grid implements IGrid, PluginMessageListener {
         public IGrid unsubscribe (@Nonnull OfflinePlayer player, @Nonnull String channelName) throws IllegalStateException {
                 return this.unsubscribe (player, channelName, null, null);
         }
+
+        /**
+         * Represents a request which is still awaiting its response.
+         */
+        private static final class PendingRequest {
+                private final SuccessCallback[] callbacks;
+                private final FailureCallback[] failureCallbacks;
+
+                PendingRequest (@Nonnull SuccessCallback[] callbacks, @Nonnull FailureCallback[] failureCallbacks) {
+                        this.callbacks = callbacks;
+                        this.failureCallbacks = failureCallbacks;
+                }
+
+                /**
+                 * Notifies the callbacks of every operation about their respective result.
+                 *
+                 * @param results The error masks (one per operation).
+                 */
+                void complete (@Nonnull int[] results) {
+                        for (int i = 0; i < Math.min (this.callbacks.length, results.length); i++) {
+                                Set<ErrorCode> errorCodes = ErrorCode.of (results[i]);
+
+                                if (ErrorCode.hasError (errorCodes)) {
+                                        if (this.failureCallbacks[i] != null) { this.failureCallbacks[i].accept (errorCodes); }
+                                } else if (this.callbacks[i] != null) {
+                                        this.callbacks[i].accept ();
+                                }
+                        }
+                }
+        }
 }
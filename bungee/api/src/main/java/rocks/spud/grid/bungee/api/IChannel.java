@@ -59,7 +59,7 @@ public interface IChannel {
         @Nonnull
         String name ();
         /**
-         * Retrieves a list of subscribed players.
+         * Retrieves an immutable snapshot of all subscribed players.
          *
          * @return The {@link net.md_5.bungee.api.connection.ProxiedPlayer} list.
          */
@@ -23,8 +23,10 @@ import rocks.spud.grid.bungee.api.configuration.IGlobalGridConfiguration;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Collection;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * @author Johannes Donath
@@ -39,6 +41,18 @@ public interface IGrid {
         @Nonnull
         IGlobalGridConfiguration configuration ();
 
+        /**
+         * Broadcasts a message to a set of channels.
+         *
+         * Players who are subscribed to more than one of the channels receive the message only once.
+         *
+         * @param channels The {@link rocks.spud.grid.bungee.api.IChannel}s.
+         * @param message  The message {@link java.lang.String}.
+         * @return The {@link rocks.spud.grid.bungee.api.IGrid} instance.
+         */
+        @Nonnull
+        IGrid broadcast (@Nonnull Collection<? extends IChannel> channels, @Nonnull String message);
+
         /**
          * Creates a temporary (non-permanent) channel.
          *
@@ -73,6 +87,22 @@ public interface IGrid {
          */
         @Nonnull
         Optional<? extends IChannel> getChannel (@Nonnull ServerInfo serverInfo);
+        /**
+         * Retrieves all channels a player is subscribed to.
+         *
+         * @param player The {@link net.md_5.bungee.api.connection.ProxiedPlayer}.
+         * @return The {@link rocks.spud.grid.bungee.api.IChannel} set.
+         */
+        @Nonnull
+        Set<? extends IChannel> getChannels (@Nonnull ProxiedPlayer player);
+        /**
+         * Retrieves all wildcard patterns a player is subscribed to.
+         *
+         * @param player The {@link net.md_5.bungee.api.connection.ProxiedPlayer}.
+         * @return The pattern set.
+         */
+        @Nonnull
+        Set<String> getWildcards (@Nonnull ProxiedPlayer player);
         /**
          * Retrieves the global default channel.
          *
@@ -112,4 +142,32 @@ public interface IGrid {
          */
         @Nonnull
         IGrid removeChannel (@Nonnull IChannel channel) throws IllegalArgumentException;
+
+        /**
+         * Subscribes a player to all channels matching a wildcard pattern.
+         *
+         * Channel names form a hierarchy of dot separated segments. The pattern {@code bedwars.*} thus matches channels
+         * such as {@code bedwars.lobby} and {@code bedwars.team.red} (including channels created later on) while the
+         * pattern {@code *} matches all channels.
+         *
+         * @param player  The {@link net.md_5.bungee.api.connection.ProxiedPlayer}.
+         * @param pattern The pattern {@link java.lang.String}.
+         * @return The {@link rocks.spud.grid.bungee.api.IGrid} instance.
+         *
+         * @throws java.lang.IllegalArgumentException if the pattern does not end with a wildcard.
+         */
+        @Nonnull
+        IGrid subscribeWildcard (@Nonnull ProxiedPlayer player, @Nonnull String pattern) throws IllegalArgumentException;
+
+        /**
+         * Un-Subscribes a player from a wildcard pattern.
+         *
+         * @param player  The {@link net.md_5.bungee.api.connection.ProxiedPlayer}.
+         * @param pattern The pattern {@link java.lang.String}.
+         * @return The {@link rocks.spud.grid.bungee.api.IGrid} instance.
+         *
+         * @throws java.lang.IllegalArgumentException if the pattern does not end with a wildcard.
+         */
+        @Nonnull
+        IGrid unsubscribeWildcard (@Nonnull ProxiedPlayer player, @Nonnull String pattern) throws IllegalArgumentException;
 }
@@ -16,6 +16,7 @@
  */
 package rocks.spud.grid.bungee.api.configuration;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Optional;
@@ -48,6 +49,19 @@ public interface IGlobalGridConfiguration extends IGridConfiguration {
         @Nonnull
         Set<String> channels ();
 
+        /**
+         * Defines whether servers may negotiate compression of large plugin messages.
+         * @return {@code true} if enabled, {@code false} otherwise.
+         */
+        boolean compression ();
+
+        /**
+         * Retrieves the minimum size (in bytes) of plugin messages which are compressed (if enabled).
+         * @return The threshold.
+         */
+        @Nonnegative
+        int compressionThreshold ();
+
         /**
          * Retrieves a server specific configuration.
          * @param name The server name/alias.
@@ -63,16 +77,73 @@ public interface IGlobalGridConfiguration extends IGridConfiguration {
         @Override
         String defaultChannel ();
 
+        /**
+         * Retrieves the rate limit of an operation (if any).
+         * @param operation The operation name (such as "channelMessage").
+         * @return The rate limit (if any).
+         */
+        @Nonnull
+        Optional<IRateLimitConfiguration> rateLimit (@Nonnull String operation);
+
         /**
          * Defines whether shorthand commands are enabled.
          * @return {@code true} if enabled, {@code false} otherwise.
          */
         boolean registerShorthandCommands ();
 
+        /**
+         * Retrieves the amount of threads which deliver messages of large channels.
+         * @return The amount of threads.
+         */
+        @Nonnegative
+        int deliveryThreads ();
+
         /**
          * Retrieves the message format.
          * @return The format.
          */
         @Nonnull
         String format ();
+
+        /**
+         * Retrieves the amount of milliseconds messages are collected before they are written to a player.
+         * @return The interval or zero if messages are written immediately (unless the player's connection is stalled).
+         */
+        @Nonnegative
+        long outboundFlushInterval ();
+
+        /**
+         * Retrieves the policy which applies to messages exceeding the outbound queue capacity of a player.
+         * @return The policy.
+         */
+        @Nonnull
+        OverflowPolicy outboundOverflowPolicy ();
+
+        /**
+         * Retrieves the maximum amount of messages which may be waiting to be written to a single player.
+         * @return The capacity.
+         */
+        @Nonnegative
+        int outboundQueueCapacity ();
+
+        /**
+         * Retrieves the minimum amount of subscribers a channel requires for its messages to be delivered in parallel.
+         * @return The threshold or zero if parallel delivery has been disabled.
+         */
+        @Nonnegative
+        int parallelDeliveryThreshold ();
+
+        /**
+         * Retrieves the maximum amount of requests which may be queued per server before further requests are rejected.
+         * @return The capacity.
+         */
+        @Nonnegative
+        int workerQueueCapacity ();
+
+        /**
+         * Retrieves the amount of threads which process requests received from servers.
+         * @return The amount of threads.
+         */
+        @Nonnegative
+        int workerThreads ();
 }
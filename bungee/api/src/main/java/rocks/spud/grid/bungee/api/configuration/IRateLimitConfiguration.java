@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bungee.api.configuration;
+
+import javax.annotation.Nonnegative;
+
+/**
+ * Describes the rate at which servers may issue requests of a certain type.
+ *
+ * @author Johannes Donath
+ */
+public interface IRateLimitConfiguration {
+
+        /**
+         * Retrieves the maximum amount of requests which may be issued in quick succession.
+         * @return The burst size.
+         */
+        @Nonnegative
+        int burst ();
+
+        /**
+         * Retrieves the sustained amount of requests per second (or zero if unlimited).
+         * @return The rate.
+         */
+        @Nonnegative
+        float rate ();
+}
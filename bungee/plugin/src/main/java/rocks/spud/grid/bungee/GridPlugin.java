@@ -21,6 +21,10 @@ import rocks.spud.grid.bungee.command.*;
 import rocks.spud.grid.bungee.event.PlayerListener;
 import rocks.spud.grid.bungee.event.PluginChannelListener;
 import rocks.spud.grid.bungee.implementation.Grid;
+import rocks.spud.grid.bungee.implementation.network.OperationRegistry;
+import rocks.spud.grid.bungee.implementation.network.RateLimiter;
+import rocks.spud.grid.bungee.implementation.network.RequestExecutor;
+import rocks.spud.grid.bungee.implementation.network.ResponseDispatcher;
 
 import javax.annotation.Nullable;
 import java.util.logging.Filter;
@@ -32,6 +36,10 @@ import java.util.logging.Filter;
  */
 public class GridPlugin extends Plugin {
         private Grid grid;
+        private OperationRegistry operations;
+        private RequestExecutor executor;
+        private RateLimiter rateLimiter;
+        private ResponseDispatcher responseDispatcher;
 
         /**
          * Provides access to the {@link rocks.spud.grid.bungee.api.IGrid} API.
@@ -43,6 +51,49 @@ public class GridPlugin extends Plugin {
                 return this.grid;
         }
 
+        /**
+         * Provides access to the executor which processes requests received from servers.
+         *
+         * @return The executor.
+         */
+        @Nullable
+        public RequestExecutor executor () {
+                return this.executor;
+        }
+
+        /**
+         * Provides access to the registry of network operation handlers.
+         *
+         * Plugins may register additional handlers (or replace the built-in handlers) for operations received from
+         * servers. The registry is available as soon as this plugin has been enabled.
+         *
+         * @return The registry.
+         */
+        @Nullable
+        public OperationRegistry operations () {
+                return this.operations;
+        }
+
+        /**
+         * Provides access to the rate limiter which throttles requests received from servers (as well as its counters).
+         *
+         * @return The rate limiter.
+         */
+        @Nullable
+        public RateLimiter rateLimiter () {
+                return this.rateLimiter;
+        }
+
+        /**
+         * Provides access to the dispatcher which coalesces responses to servers.
+         *
+         * @return The dispatcher.
+         */
+        @Nullable
+        public ResponseDispatcher responseDispatcher () {
+                return this.responseDispatcher;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -51,6 +102,20 @@ public class GridPlugin extends Plugin {
                 super.onDisable ();
 
                 this.getProxy ().unregisterChannel (PluginChannelListener.CHANNEL_NAME);
+
+                if (this.executor != null) {
+                        this.executor.shutdown ();
+                        this.executor = null;
+                }
+
+                if (this.responseDispatcher != null) {
+                        this.responseDispatcher.shutdown ();
+                        this.responseDispatcher = null;
+                }
+
+                if (this.grid != null) {
+                        this.grid.shutdown ();
+                }
         }
 
         /**
@@ -73,6 +138,10 @@ public class GridPlugin extends Plugin {
                         }
                 }
 
+                this.operations = new OperationRegistry ();
+                this.rateLimiter = new RateLimiter (this.grid.configuration ());
+                this.responseDispatcher = new ResponseDispatcher (this.getLogger (), this.grid.configuration (), PluginChannelListener.CHANNEL_NAME);
+                this.executor = new RequestExecutor (this.getLogger (), this.grid.configuration ().workerThreads (), this.grid.configuration ().workerQueueCapacity ());
                 this.getProxy ().registerChannel (PluginChannelListener.CHANNEL_NAME);
 
                 // Event Listeners
@@ -60,7 +60,7 @@ public abstract class AbstractChannelCommand extends AbstractCommand {
                 channel.dispatchMessage ((sender instanceof ProxiedPlayer ? ((ProxiedPlayer) sender) : null), message);
 
                 if (sender instanceof ProxiedPlayer && !channel.isSubscribed (((ProxiedPlayer) sender))) {
-                        sender.sendMessage (TextComponent.fromLegacyText (String.format (this.grid ().configuration ().format (), channel.name (), ((ProxiedPlayer) sender).getDisplayName (), message)));
+                        sender.sendMessage (channel.format (((ProxiedPlayer) sender), message));
                 }
         }
 
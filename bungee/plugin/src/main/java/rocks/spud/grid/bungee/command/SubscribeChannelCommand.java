@@ -22,6 +22,7 @@ import net.md_5.bungee.api.chat.TextComponent;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
 import rocks.spud.grid.bungee.GridPlugin;
 import rocks.spud.grid.bungee.implementation.channel.Channel;
+import rocks.spud.grid.bungee.implementation.channel.ChannelTrie;
 
 import javax.annotation.Nonnull;
 import java.util.Optional;
@@ -60,6 +61,27 @@ public class SubscribeChannelCommand extends AbstractCommand {
                         return;
                 }
 
+                if (ChannelTrie.isWildcard (args[0])) {
+                        ProxiedPlayer player = ((ProxiedPlayer) sender);
+
+                        if (this.grid ().getWildcards (player).contains (args[0])) {
+                                // TODO: Localization
+                                TextComponent component = new TextComponent ("You are already subscribed to all channels matching " + args[0]);
+                                component.setColor (ChatColor.GOLD);
+
+                                sender.sendMessage (component);
+                                return;
+                        }
+
+                        // TODO: Localization
+                        TextComponent component = new TextComponent ("You subscribed to all channels matching " + args[0]);
+                        component.setColor (ChatColor.DARK_GREEN);
+
+                        this.grid ().subscribeWildcard (player, args[0]);
+                        player.sendMessage (component);
+                        return;
+                }
+
                 if (!channel.isPresent ()) {
                         // TODO: Localization
                         TextComponent component = new TextComponent ("No such channel.");
@@ -16,24 +16,50 @@
  */
 package rocks.spud.grid.bungee.event;
 
-import net.md_5.bungee.api.connection.Connection;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
 import net.md_5.bungee.api.connection.Server;
 import net.md_5.bungee.api.event.PluginMessageEvent;
 import net.md_5.bungee.api.plugin.Listener;
 import net.md_5.bungee.event.EventHandler;
 import rocks.spud.grid.api.ErrorCode;
+import rocks.spud.grid.api.Operation;
+import rocks.spud.grid.api.Protocol;
 import rocks.spud.grid.bungee.GridPlugin;
 import rocks.spud.grid.bungee.implementation.channel.Channel;
+import rocks.spud.grid.bungee.implementation.channel.ChannelTrie;
+import rocks.spud.grid.bungee.implementation.network.OperationHandler;
+import rocks.spud.grid.bungee.implementation.network.ServerSession;
+import rocks.spud.grid.message.BatchHeader;
+import rocks.spud.grid.message.BatchHeaderCodec;
+import rocks.spud.grid.message.ChannelBroadcastRequest;
+import rocks.spud.grid.message.ChannelBroadcastRequestCodec;
+import rocks.spud.grid.message.ChannelCreateRequest;
+import rocks.spud.grid.message.ChannelCreateRequestCodec;
+import rocks.spud.grid.message.ChannelMessageRequest;
+import rocks.spud.grid.message.ChannelMessageRequestCodec;
+import rocks.spud.grid.message.ChannelRemoveRequest;
+import rocks.spud.grid.message.ChannelRemoveRequestCodec;
+import rocks.spud.grid.message.ChannelSubscribeRequest;
+import rocks.spud.grid.message.ChannelSubscribeRequestCodec;
+import rocks.spud.grid.message.ChannelUnsubscribeRequest;
+import rocks.spud.grid.message.ChannelUnsubscribeRequestCodec;
+import rocks.spud.grid.message.HandshakeRequest;
+import rocks.spud.grid.message.HandshakeRequestCodec;
+import rocks.spud.grid.message.RequestHeader;
+import rocks.spud.grid.message.RequestHeaderCodec;
+import rocks.spud.grid.message.Response;
+import rocks.spud.grid.util.Compression;
 import rocks.spud.grid.util.Packet;
 
 import javax.annotation.Nonnull;
-import java.lang.invoke.MethodHandle;
-import java.lang.invoke.MethodHandles;
-import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -41,43 +67,99 @@ import java.util.logging.Logger;
  */
 public class PluginChannelListener implements Listener {
         public static final String CHANNEL_NAME = "BungeeCord|Grid";
-        public static final String METHOD_FORMAT = "on%sMessage";
+
+        /**
+         * Defines a mask of errors which are not final (e.g. retrying the request later on may succeed) and may thus not
+         * be replayed when a request is retransmitted.
+         */
+        public static final int TRANSIENT_ERRORS = ErrorCode.of (ErrorCode.OVERLOADED, ErrorCode.THROTTLED);
 
         private final GridPlugin plugin;
+        private final Map<String, ServerSession> sessionMap = new ConcurrentHashMap<> ();
 
         public PluginChannelListener (@Nonnull GridPlugin plugin) {
                 this.plugin = plugin;
+
+                // noinspection ConstantConditions
+                this.plugin.operations ()
+                           .register ("Channel", this::onChannelMessage)
+                           .register ("Session", this::onSessionMessage);
         }
 
         /**
-         * Calls a sub-channel handler.
+         * Calls the handler of an operation.
          *
-         * @param channel The channel.
-         * @param sender  The sender.
-         * @param packet  The packet.
+         * @param operation The operation.
+         * @param sender    The sender.
+         * @param packet    The packet.
+         * @return The resulting error mask.
          */
-        private void callHandler (@Nonnull String channel, @Nonnull Connection sender, @Nonnull Packet packet) {
-                if (!(sender instanceof Server)) { return; }
+        private int callHandler (@Nonnull Operation operation, @Nonnull Server sender, @Nonnull Packet packet) {
+                // noinspection ConstantConditions
+                OperationHandler handler = this.plugin.operations ().handler (operation);
+
+                if (handler == null) {
+                        this.logger ().warning ("Could not locate handler for operation " + operation + " (sub-channel \"" + operation.subChannel () + "\")");
+                        operation.skip (packet);
+                        return ErrorCode.of (ErrorCode.UNSUPPORTED);
+                }
+
+                // noinspection ConstantConditions
+                if (!this.plugin.rateLimiter ().tryAcquire (sender.getInfo ().getName (), operation)) {
+                        operation.skip (packet);
+                        return ErrorCode.of (ErrorCode.THROTTLED);
+                }
+
+                int readerIndex = packet.buffer ().readerIndex ();
 
                 try {
+                        return handler.handle (sender, operation, packet);
+                } catch (RuntimeException ex) {
+                        this.logger ().log (Level.SEVERE, "Cannot call handler for operation " + operation + ": " + ex.getMessage (), ex);
+                }
+
+                // the handler may have stopped anywhere within the payload thus we'll have to re-locate its end in order
+                // to keep subsequent operations (within a batch) readable
+                packet.buffer ().readerIndex (readerIndex);
+                operation.skip (packet);
+
+                return ErrorCode.of (ErrorCode.INTERNAL);
+        }
+
+        /**
+         * Handles a batch of operations.
+         *
+         * @param sender The sender.
+         * @param packet The packet.
+         * @return The resulting error masks (in their original order).
+         *
+         * @throws java.lang.IllegalStateException when the batch is malformed.
+         */
+        @Nonnull
+        private int[] handleBatch (@Nonnull Server sender, @Nonnull Packet packet) throws IllegalStateException {
+                BatchHeader header = BatchHeaderCodec.decode (packet);
+
+                // every operation occupies at least a single byte (its opcode) which permits us to reject bogus counts
+                // before allocating the result array
+                if (header.getCount () < 0 || header.getCount () > packet.buffer ().readableBytes ()) { throw new IllegalStateException ("Malformed batch: " + header.getCount () + " operations exceed the remaining " + packet.buffer ().readableBytes () + " bytes"); }
+
+                int[] results = new int[header.getCount ()];
 
-                        // @formatter:off
-                        MethodHandle handle = MethodHandles.lookup ()
-                                                           .findVirtual (
-                                                                   this.getClass (),
-                                                                   String.format (METHOD_FORMAT, channel),
-                                                                   MethodType.methodType (void.class, Server.class, Packet.class)
-                                                           );
-                        // @formatter:on
-
-                        handle.bindTo (this);
-                        handle.invokeExact (sender, packet);
-                } catch (NoSuchMethodException ex) {
-                        this.logger ().warning ("Could not locate handler for sub-channel: " + channel);
-                } catch (Throwable ex) {
-                        this.logger ().severe ("Cannot call handler for sub-channel \"" + channel + "\": " + ex.getMessage ());
-                        ex.printStackTrace ();
+                for (int i = 0; i < results.length; i++) {
+                        byte opcode = packet.readByte ();
+                        Operation operation = Operation.of (opcode);
+
+                        if (operation == null || operation == Operation.BATCH) {
+                                // without knowing the payload layout none of the following operations can be located
+                                this.logger ().warning ("Skipping remaining batch operations due to unsupported opcode 0x" + Integer.toHexString ((opcode & 0xFF)));
+                                Arrays.fill (results, i, results.length, ErrorCode.of (ErrorCode.UNKNOWN_OPERATION));
+                                break;
+                        }
+
+                        results[i] = this.callHandler (operation, sender, packet);
                 }
+
+                return results;
         }
 
         /**
@@ -93,49 +175,57 @@ public class PluginChannelListener implements Listener {
         /**
          * Handles the "Channel" sub-channel.
          *
-         * @param sender The sender.
-         * @param packet The packet.
+         * @param sender    The sender.
+         * @param operation The operation.
+         * @param packet    The packet.
+         * @return The resulting error mask.
+         *
+         * @throws java.lang.IllegalArgumentException when the operation is not handled by this sub-channel.
          */
-        public void onChannelMessage (@Nonnull Server sender, @Nonnull Packet packet) {
-                String action = packet.readString ();
-                Packet response = Packet.empty ();
-
-                // all packets include a requestID that is used to easily identify the response further down the road
-                // this randomly generated ID will just be echoed back. Keep in mind that it currently uses 128 bits
-                // which might be a bit excessive for smaller networks that will not make heavy use of these features
-                UUID requestID = packet.readUUID ();
-                response.write (requestID);
-
-                switch (action) {
-                        case "Create": {
-                                String name = packet.readString ();
+        public int onChannelMessage (@Nonnull Server sender, @Nonnull Operation operation, @Nonnull Packet packet) throws IllegalArgumentException {
+                switch (operation) {
+                        case CHANNEL_CREATE: {
+                                ChannelCreateRequest request = ChannelCreateRequestCodec.decode (packet);
+                                String name = request.getChannel ();
 
                                 try {
                                         // noinspection ConstantConditions
                                         this.plugin.api ().createChannel (name);
-                                        response.write (ErrorCode.SUCCESS);
+                                        return ErrorCode.of (ErrorCode.SUCCESS);
                                 } catch (IllegalArgumentException ex) {
-                                        response.write (ErrorCode.DUPLICATE);
+                                        return ErrorCode.of (ErrorCode.DUPLICATE);
                                 }
                         }
-                        break;
-                        case "Remove": {
-                                String name = packet.readString ();
+                        case CHANNEL_REMOVE: {
+                                ChannelRemoveRequest request = ChannelRemoveRequestCodec.decode (packet);
+                                String name = request.getChannel ();
 
                                 try {
                                         // noinspection ConstantConditions
                                         this.plugin.api ().removeChannel (name);
-                                        response.write (ErrorCode.SUCCESS);
+                                        return ErrorCode.of (ErrorCode.SUCCESS);
                                 } catch (NoSuchElementException ex) {
-                                        response.write (ErrorCode.NO_SUCH_CHANNEL);
+                                        return ErrorCode.of (ErrorCode.NO_SUCH_CHANNEL);
                                 } catch (IllegalArgumentException ex) {
-                                        response.write (ErrorCode.NON_PERMANENT);
+                                        return ErrorCode.of (ErrorCode.NON_PERMANENT);
                                 }
                         }
-                        break;
-                        case "Subscribe": {
-                                String playerName = packet.readString ();
-                                String name = packet.readString ();
+                        case CHANNEL_SUBSCRIBE: {
+                                ChannelSubscribeRequest request = ChannelSubscribeRequestCodec.decode (packet);
+                                String playerName = request.getPlayer ();
+                                String name = request.getChannel ();
+
+                                if (ChannelTrie.isWildcard (name)) {
+                                        ProxiedPlayer player = this.plugin.getProxy ().getPlayer (playerName);
+                                        if (player == null) { return ErrorCode.of (ErrorCode.NO_SUCH_PLAYER); }
+
+                                        // noinspection ConstantConditions
+                                        if (this.plugin.api ().getWildcards (player).contains (name)) { return ErrorCode.of (ErrorCode.SUBSCRIBED); }
+
+                                        // noinspection ConstantConditions
+                                        this.plugin.api ().subscribeWildcard (player, name);
+                                        return ErrorCode.of (ErrorCode.SUCCESS);
+                                }
 
                                 // noinspection ConstantConditions
                                 Optional<Channel> channel = this.plugin.api ().getChannel (name);
@@ -152,12 +242,24 @@ public class PluginChannelListener implements Listener {
                                         } else { channel.get ().subscribe (player); }
                                 }
 
-                                response.write (codes);
+                                return ErrorCode.of (codes);
                         }
-                        break;
-                        case "Unsubscribe": {
-                                String playerName = packet.readString ();
-                                String name = packet.readString ();
+                        case CHANNEL_UNSUBSCRIBE: {
+                                ChannelUnsubscribeRequest request = ChannelUnsubscribeRequestCodec.decode (packet);
+                                String playerName = request.getPlayer ();
+                                String name = request.getChannel ();
+
+                                if (ChannelTrie.isWildcard (name)) {
+                                        ProxiedPlayer player = this.plugin.getProxy ().getPlayer (playerName);
+                                        if (player == null) { return ErrorCode.of (ErrorCode.NO_SUCH_PLAYER); }
+
+                                        // noinspection ConstantConditions
+                                        if (!this.plugin.api ().getWildcards (player).contains (name)) { return ErrorCode.of (ErrorCode.NOT_SUBSCRIBED); }
+
+                                        // noinspection ConstantConditions
+                                        this.plugin.api ().unsubscribeWildcard (player, name);
+                                        return ErrorCode.of (ErrorCode.SUCCESS);
+                                }
 
                                 // noinspection ConstantConditions
                                 Optional<Channel> channel = this.plugin.api ().getChannel (name);
@@ -174,29 +276,39 @@ public class PluginChannelListener implements Listener {
                                         } else { channel.get ().unsubscribe (player); }
                                 }
 
-                                response.write (codes);
+                                return ErrorCode.of (codes);
                         }
-                        break;
-                        case "Message": {
-                                String name = packet.readString ();
-                                String message = packet.readString ();
+                        case CHANNEL_MESSAGE: {
+                                ChannelMessageRequest request = ChannelMessageRequestCodec.decode (packet);
+                                String name = request.getChannel ();
+                                String message = request.getMessage ();
 
                                 // noinspection ConstantConditions
                                 Optional<Channel> channel = this.plugin.api ().getChannel (name);
+                                if (!channel.isPresent ()) { return ErrorCode.of (ErrorCode.NO_SUCH_CHANNEL); }
+
+                                channel.get ().dispatchMessage (null, message);
+                                return ErrorCode.of (ErrorCode.SUCCESS);
+                        }
+                        case CHANNEL_BROADCAST: {
+                                ChannelBroadcastRequest request = ChannelBroadcastRequestCodec.decode (packet);
+                                List<Channel> channels = new ArrayList<> (request.getChannels ().length);
+
+                                for (String name : request.getChannels ()) {
+                                        // noinspection ConstantConditions
+                                        Optional<Channel> channel = this.plugin.api ().getChannel (name);
+                                        if (!channel.isPresent ()) { return ErrorCode.of (ErrorCode.NO_SUCH_CHANNEL); }
 
-                                if (!channel.isPresent ()) { response.write (ErrorCode.NO_SUCH_CHANNEL); } else {
-                                        channel.get ().dispatchMessage (null, message);
-                                        response.write (ErrorCode.SUCCESS);
+                                        channels.add (channel.get ());
                                 }
+
+                                // noinspection ConstantConditions
+                                this.plugin.api ().broadcast (channels, request.getMessage ());
+                                return ErrorCode.of (ErrorCode.SUCCESS);
                         }
                 }
 
-                // The response generally consists of two fields:
-                // requestID - The original identifier of the request
-                // result - An integer value that notifies the other side about the call result
-                // This is currently a very simplified solution to the communication issue and will be
-                // replaced by a modern solution at some point
-                sender.sendData (CHANNEL_NAME, response.array ());
+                throw new IllegalArgumentException ("Unsupported operation: " + operation);
         }
 
         /**
@@ -206,11 +318,189 @@ public class PluginChannelListener implements Listener {
          */
         @EventHandler
         public void onPluginMessage (@Nonnull PluginMessageEvent event) {
-                if (!CHANNEL_NAME.equals (event.getTag ())) { return; }
+                if (!CHANNEL_NAME.equals (event.getTag ()) || !(event.getSender () instanceof Server)) { return; }
 
+                // our messages are addressed to the proxy only and are thus never relayed to the client
+                event.setCancelled (true);
+
+                Server sender = ((Server) event.getSender ());
                 Packet packet = Packet.wrap (event.getData ());
-                String subChannel = packet.readString ();
+                byte version = packet.readByte ();
+
+                if (version != Protocol.VERSION) {
+                        this.logger ().warning ("Dropping message encoded with unsupported protocol revision " + version + " (expected " + Protocol.VERSION + ")");
+                        return;
+                }
+
+                byte flags = packet.readByte ();
+
+                if ((flags & Protocol.FLAG_COMPRESSED) != 0) {
+                        try {
+                                packet = Compression.decompress (packet);
+                        } catch (IllegalStateException ex) {
+                                this.logger ().warning ("Dropping malformed message: " + ex.getMessage ());
+                                return;
+                        }
+                }
+
+                RequestHeader header = RequestHeaderCodec.decode (packet);
+                Operation operation = Operation.of (header.getOpcode ());
+
+                if (operation == null) {
+                        this.logger ().warning ("Rejecting message with unknown opcode 0x" + Integer.toHexString ((header.getOpcode () & 0xFF)));
+                        this.sendResponse (sender, header.getRequestID (), new int[] {ErrorCode.of (ErrorCode.UNKNOWN_OPERATION)});
+                        return;
+                }
+
+                // the actual operations are executed by a worker in order to keep this (network) thread responsive
+                final Packet payload = packet;
+
+                // noinspection ConstantConditions
+                if (!this.plugin.executor ().submit (this.session (sender), () -> this.processRequest (sender, header.getRequestID (), operation, payload))) {
+                        this.logger ().fine ("Rejecting request from server \"" + sender.getInfo ().getName () + "\": Request queue is full");
+                        this.rejectRequest (sender, header.getRequestID (), operation, payload);
+                }
+        }
+
+        /**
+         * Processes a request.
+         *
+         * @param sender    The sender.
+         * @param requestID The request identifier.
+         * @param operation The operation.
+         * @param packet    The packet (positioned at the start of the operation payload).
+         */
+        private void processRequest (@Nonnull Server sender, int requestID, @Nonnull Operation operation, @Nonnull Packet packet) {
+                ServerSession session = this.session (sender);
+                int[] results;
+
+                // retransmitted requests are answered with their original results instead of being executed twice
+                // while a new session (e.g. after a server restart) invalidates all previously used request identifiers
+                if (operation == Operation.SESSION_HANDSHAKE) {
+                        session.clearCachedResults ();
+                } else {
+                        results = session.getCachedResults (requestID);
+
+                        if (results != null) {
+                                this.logger ().fine ("Replaying response to request #" + requestID + " of server \"" + session.getName () + "\"");
+                                this.sendResponse (sender, requestID, results);
+                                return;
+                        }
+                }
+
+                if (operation == Operation.BATCH) {
+                        try {
+                                results = this.handleBatch (sender, packet);
+                        } catch (IllegalStateException | IndexOutOfBoundsException ex) {
+                                this.logger ().warning ("Dropping malformed batch: " + ex.getMessage ());
+                                return;
+                        }
+                } else {
+                        results = new int[] {this.callHandler (operation, sender, packet)};
+                }
+
+                if (operation != Operation.SESSION_HANDSHAKE && isFinal (results)) { session.cacheResults (requestID, results); }
+                this.sendResponse (sender, requestID, results);
+        }
+
+        /**
+         * Checks whether a set of results is final (e.g. contains no transient errors).
+         *
+         * @param results The resulting error masks.
+         * @return {@code true} if final, {@code false} otherwise.
+         */
+        private static boolean isFinal (@Nonnull int[] results) {
+                for (int result : results) {
+                        if ((result & TRANSIENT_ERRORS) != 0) { return false; }
+                }
+
+                return true;
+        }
+
+        /**
+         * Rejects a request which cannot be processed due to an overload.
+         *
+         * @param sender    The sender.
+         * @param requestID The request identifier.
+         * @param operation The operation.
+         * @param packet    The packet (positioned at the start of the operation payload).
+         */
+        private void rejectRequest (@Nonnull Server sender, int requestID, @Nonnull Operation operation, @Nonnull Packet packet) {
+                int count = 1;
+
+                if (operation == Operation.BATCH) {
+                        try {
+                                count = BatchHeaderCodec.decode (packet).getCount ();
+                        } catch (IllegalStateException | IndexOutOfBoundsException ex) {
+                                this.logger ().warning ("Dropping malformed batch: " + ex.getMessage ());
+                                return;
+                        }
+
+                        if (count < 0 || count > packet.buffer ().readableBytes ()) {
+                                this.logger ().warning ("Dropping malformed batch: " + count + " operations exceed the remaining " + packet.buffer ().readableBytes () + " bytes");
+                                return;
+                        }
+                }
+
+                int[] results = new int[count];
+                Arrays.fill (results, ErrorCode.of (ErrorCode.OVERLOADED));
+
+                this.sendResponse (sender, requestID, results);
+        }
+
+        /**
+         * Handles the "Session" sub-channel.
+         *
+         * @param sender    The sender.
+         * @param operation The operation.
+         * @param packet    The packet.
+         * @return The resulting error mask.
+         *
+         * @throws java.lang.IllegalArgumentException when the operation is not handled by this sub-channel.
+         */
+        public int onSessionMessage (@Nonnull Server sender, @Nonnull Operation operation, @Nonnull Packet packet) throws IllegalArgumentException {
+                switch (operation) {
+                        case SESSION_HANDSHAKE: {
+                                HandshakeRequest request = HandshakeRequestCodec.decode (packet);
+
+                                // noinspection ConstantConditions
+                                boolean compression = (request.isCompression () && this.plugin.api ().configuration ().compression ());
+                                this.session (sender).setCompressionEnabled (compression);
+
+                                return ErrorCode.of ((compression ? ErrorCode.SUCCESS : ErrorCode.UNSUPPORTED));
+                        }
+                }
+
+                throw new IllegalArgumentException ("Unsupported operation: " + operation);
+        }
 
-                this.callHandler (subChannel, event.getSender (), packet);
+        /**
+         * Retrieves the session of a server (or creates a new one if none exists yet).
+         *
+         * @param server The server.
+         * @return The session.
+         */
+        @Nonnull
+        private ServerSession session (@Nonnull Server server) {
+                return this.sessionMap.computeIfAbsent (server.getInfo ().getName (), ServerSession::new);
+        }
+
+        /**
+         * Sends the response to a request.
+         *
+         * Responses are not written immediately but coalesced with other responses to the same server (see
+         * {@link rocks.spud.grid.bungee.implementation.network.ResponseDispatcher}).
+         *
+         * @param sender    The sender of the original request.
+         * @param requestID The identifier of the original request.
+         * @param results   The resulting error masks.
+         */
+        private void sendResponse (@Nonnull Server sender, int requestID, @Nonnull int[] results) {
+                // The response generally consists of two fields:
+                // requestID - The original identifier of the request (generated by a per-server counter and echoed back)
+                // results - One VarInt error mask per operation that notifies the other side about the call results
+                // (both are laid out as declared in rocks.spud.grid.message.Response)
+                // noinspection ConstantConditions
+                this.plugin.responseDispatcher ().send (this.session (sender), sender.getInfo (), new Response (requestID, results));
         }
 }
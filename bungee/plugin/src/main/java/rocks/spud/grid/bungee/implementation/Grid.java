@@ -16,18 +16,26 @@
  */
 package rocks.spud.grid.bungee.implementation;
 
+import com.google.common.collect.Sets;
 import com.torchmind.candle.api.error.CandleException;
 import net.md_5.bungee.api.ChatColor;
 import net.md_5.bungee.api.chat.TextComponent;
 import net.md_5.bungee.api.config.ServerInfo;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
 import net.md_5.bungee.api.connection.Server;
+import net.md_5.bungee.chat.ComponentSerializer;
+import net.md_5.bungee.protocol.packet.Chat;
 import rocks.spud.grid.bungee.GridPlugin;
 import rocks.spud.grid.bungee.api.IChannel;
 import rocks.spud.grid.bungee.api.IGrid;
 import rocks.spud.grid.bungee.api.configuration.IGridConfiguration;
 import rocks.spud.grid.bungee.implementation.channel.Channel;
+import rocks.spud.grid.bungee.implementation.channel.ChannelTrie;
+import rocks.spud.grid.bungee.implementation.channel.FanOutExecutor;
+import rocks.spud.grid.bungee.implementation.channel.OutboundDispatcher;
 import rocks.spud.grid.bungee.implementation.channel.PermanentChannel;
+import rocks.spud.grid.bungee.implementation.channel.PlayerBitmap;
+import rocks.spud.grid.bungee.implementation.channel.PlayerRegistry;
 import rocks.spud.grid.bungee.implementation.channel.TemporaryChannel;
 import rocks.spud.grid.bungee.implementation.configuration.GlobalGridConfiguration;
 
@@ -35,11 +43,15 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
 
 /**
  * Manages the plugin.
@@ -51,7 +63,13 @@ public class Grid implements IGrid {
         public static final String CONFIGURATION_FILE_NAME = "config.cndl";
         private final GridPlugin plugin;
         private final Map<String, Channel> channelMap = new ConcurrentHashMap<> ();
+        private final Map<ProxiedPlayer, Set<Channel>> subscriptionMap = new ConcurrentHashMap<> ();
+        private final Map<ProxiedPlayer, Set<String>> wildcardMap = new ConcurrentHashMap<> ();
+        private final ChannelTrie wildcards = new ChannelTrie ();
         private final GlobalGridConfiguration configuration;
+        private final PlayerRegistry players = new PlayerRegistry ();
+        private final OutboundDispatcher outbound;
+        private final FanOutExecutor executor;
 
         public Grid (@Nonnull GridPlugin plugin) {
                 this.plugin = plugin;
@@ -76,7 +94,27 @@ public class Grid implements IGrid {
                         throw new RuntimeException ("Could not read/write configuration file: " + ex.getMessage (), ex);
                 }
 
-                this.configuration.channels ().forEach ((c) -> this.channelMap.put (c, new PermanentChannel (this.configuration, c)));
+                this.outbound = new OutboundDispatcher (plugin.getLogger (), this.configuration);
+                this.executor = new FanOutExecutor (plugin.getLogger (), this.outbound, this.players, this.configuration.deliveryThreads (), this.configuration.parallelDeliveryThreshold ());
+                this.configuration.channels ().forEach ((c) -> this.channelMap.put (c, new PermanentChannel (this, c)));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public Grid broadcast (@Nonnull Collection<? extends IChannel> channels, @Nonnull String message) {
+                PlayerBitmap recipients = PlayerBitmap.EMPTY;
+                long generation = this.players.generation ();
+
+                for (IChannel channel : channels) {
+                        if (!(channel instanceof Channel)) { throw new IllegalArgumentException ("Unsupported channel implementation: " + channel.getClass ().getName ()); }
+                        recipients = recipients.union (((Channel) channel).recipients ());
+                }
+
+                this.executor.deliver (recipients, generation, new Chat (ComponentSerializer.toString (TextComponent.fromLegacyText (message))));
+                return this;
         }
 
         /**
@@ -88,13 +126,23 @@ public class Grid implements IGrid {
                 return this.configuration;
         }
 
+        /**
+         * Retrieves the executor which delivers channel messages.
+         *
+         * @return The executor.
+         */
+        @Nonnull
+        public FanOutExecutor executor () {
+                return this.executor;
+        }
+
         /**
          * {@inheritDoc}
          */
         @Nonnull
         @Override
         public TemporaryChannel createChannel (@Nonnull String name) throws IllegalArgumentException {
-                TemporaryChannel channel = new TemporaryChannel (this.configuration (), name);
+                TemporaryChannel channel = new TemporaryChannel (this, name);
                 this.channelMap.put (name, channel);
                 return channel;
         }
@@ -130,6 +178,30 @@ public class Grid implements IGrid {
                 // @formatter:on
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public Set<Channel> getChannels (@Nonnull ProxiedPlayer player) {
+                Set<Channel> channels = this.subscriptionMap.get (player);
+                if (channels == null) { return Collections.emptySet (); }
+
+                return Collections.unmodifiableSet (channels);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public Set<String> getWildcards (@Nonnull ProxiedPlayer player) {
+                Set<String> patterns = this.wildcardMap.get (player);
+                if (patterns == null) { return Collections.emptySet (); }
+
+                return Collections.unmodifiableSet (patterns);
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -194,6 +266,128 @@ public class Grid implements IGrid {
                 return this;
         }
 
+        /**
+         * Retrieves the registry which assigns identifiers to subscribed players.
+         *
+         * @return The registry.
+         */
+        @Nonnull
+        public PlayerRegistry players () {
+                return this.players;
+        }
+
+        /**
+         * Records a subscription within the player index.
+         *
+         * This method is invoked by {@link rocks.spud.grid.bungee.implementation.channel.Channel} whenever a player
+         * subscribes (see {@link #register(ProxiedPlayer, IntConsumer)}) and is not meant to be called directly.
+         *
+         * @param player  The player.
+         * @param channel The channel.
+         */
+        public void indexSubscription (@Nonnull ProxiedPlayer player, @Nonnull Channel channel) {
+                this.subscriptionMap.computeIfPresent (player, (p, s) -> {
+                        s.add (channel);
+                        return s;
+                });
+        }
+
+        /**
+         * Applies a subscription update for a player.
+         *
+         * The update is passed the identifier of the player and executed atomically with respect to
+         * {@link #unsubscribePlayer(ProxiedPlayer)} thus subscriptions of players who are disconnecting are never
+         * applied (in which case the update is skipped).
+         *
+         * @param player The player.
+         * @param update The update.
+         * @return {@code true} if applied, {@code false} if the player is disconnecting.
+         */
+        public boolean register (@Nonnull ProxiedPlayer player, @Nonnull IntConsumer update) {
+                return this.players.update (player, (id) -> {
+                        // the index entry lives as long as the player is registered and is thus never re-created once
+                        // the player has been un-subscribed from all channels
+                        this.subscriptionMap.computeIfAbsent (player, (p) -> Sets.newConcurrentHashSet ());
+                        update.accept (id);
+                });
+        }
+
+        /**
+         * Removes a subscription from the player index.
+         *
+         * This method is invoked by {@link rocks.spud.grid.bungee.implementation.channel.Channel} whenever a player
+         * un-subscribes and is not meant to be called directly.
+         *
+         * @param player  The player.
+         * @param channel The channel.
+         */
+        public void removeSubscription (@Nonnull ProxiedPlayer player, @Nonnull Channel channel) {
+                this.subscriptionMap.computeIfPresent (player, (p, s) -> {
+                        s.remove (channel);
+                        return s;
+                });
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public Grid subscribeWildcard (@Nonnull ProxiedPlayer player, @Nonnull String pattern) throws IllegalArgumentException {
+                if (!ChannelTrie.isWildcard (pattern)) { throw new IllegalArgumentException ("Not a wildcard pattern: " + pattern); }
+
+                this.register (player, (id) -> {
+                        if (!this.wildcards.subscribe (pattern, id)) { return; }
+
+                        this.wildcardMap.compute (player, (p, s) -> {
+                                if (s == null) { s = Sets.newConcurrentHashSet (); }
+
+                                s.add (pattern);
+                                return s;
+                        });
+                });
+
+                return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public Grid unsubscribeWildcard (@Nonnull ProxiedPlayer player, @Nonnull String pattern) throws IllegalArgumentException {
+                if (!ChannelTrie.isWildcard (pattern)) { throw new IllegalArgumentException ("Not a wildcard pattern: " + pattern); }
+
+                int id = this.players.identifier (player);
+                if (id == -1 || !this.wildcards.unsubscribe (pattern, id)) { return this; }
+
+                this.wildcardMap.computeIfPresent (player, (p, s) -> {
+                        s.remove (pattern);
+                        return (s.isEmpty () ? null : s);
+                });
+
+                return this;
+        }
+
+        /**
+         * Retrieves the index of wildcard subscriptions.
+         *
+         * @return The index.
+         */
+        @Nonnull
+        public ChannelTrie wildcards () {
+                return this.wildcards;
+        }
+
+        /**
+         * Shuts down all threads which deliver channel messages (queued messages are written before this method
+         * returns).
+         */
+        public void shutdown () {
+                this.executor.shutdown ();
+                this.outbound.shutdown ();
+        }
+
         /**
          * Un-Subscribes a player from all channels.
          *
@@ -202,7 +396,19 @@ public class Grid implements IGrid {
          */
         @Nonnull
         public Grid unsubscribePlayer (@Nonnull ProxiedPlayer player) {
-                this.channelMap.forEach ((k, v) -> v.unsubscribe (player));
+                // once retired, concurrent subscriptions are refused thus the indices below are complete
+                if (!this.players.retire (player)) { return this; }
+
+                Set<Channel> channels = this.subscriptionMap.remove (player);
+                if (channels != null) { channels.forEach ((c) -> c.unsubscribe (player)); }
+
+                Set<String> patterns = this.wildcardMap.remove (player);
+                int id = this.players.identifier (player);
+
+                if (patterns != null && id != -1) { patterns.forEach ((p) -> this.wildcards.unsubscribe (p, id)); }
+
+                // the identifier may only be re-used once the player has been removed from all channels
+                this.players.release (player);
                 return this;
         }
 }
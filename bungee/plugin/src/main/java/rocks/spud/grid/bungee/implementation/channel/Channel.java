@@ -17,16 +17,17 @@
 package rocks.spud.grid.bungee.implementation.channel;
 
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
 import net.md_5.bungee.api.chat.BaseComponent;
 import net.md_5.bungee.api.chat.TextComponent;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
+import net.md_5.bungee.chat.ComponentSerializer;
+import net.md_5.bungee.protocol.packet.Chat;
 import rocks.spud.grid.bungee.api.IChannel;
-import rocks.spud.grid.bungee.implementation.configuration.GlobalGridConfiguration;
+import rocks.spud.grid.bungee.implementation.Grid;
+import rocks.spud.grid.bungee.implementation.chat.ChatTemplate;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -35,13 +36,24 @@ import java.util.Set;
  * @author Johannes Donath
  */
 public abstract class Channel implements IChannel {
-        private final GlobalGridConfiguration configuration;
+        private final Grid grid;
         private final String name;
-        private final Set<ProxiedPlayer> subscribers = Sets.newConcurrentHashSet ();
+        private final ChatTemplate template;
+        private final Object subscriberLock = new Object ();
 
-        public Channel (@Nonnull GlobalGridConfiguration configuration, @Nonnull String name) {
-                this.configuration = configuration;
+        /**
+         * Stores an immutable snapshot of all subscriber identifiers which is replaced whenever players subscribe or
+         * un-subscribe (guarded by {@link #subscriberLock} for writes). Messages are dispatched far more frequently than
+         * the set changes thus we'll rather copy the set than pay for a concurrent set on every message.
+         */
+        private volatile PlayerBitmap subscribers = PlayerBitmap.EMPTY;
+
+        public Channel (@Nonnull Grid grid, @Nonnull String name) {
+                this.grid = grid;
                 this.name = name;
+
+                // the channel name never changes thus it is converted along with the rest of the format
+                this.template = grid.configuration ().template ().bind (0, name);
         }
 
         /**
@@ -53,20 +65,38 @@ public abstract class Channel implements IChannel {
                 BaseComponent[] convertedMessage;
 
                 if (player != null)
-                        convertedMessage = TextComponent.fromLegacyText (String.format (this.configuration.format (), this.name (), player.getDisplayName (), message));
+                        convertedMessage = this.format (player, message);
                 else
                         convertedMessage = TextComponent.fromLegacyText (message);
 
-                this.subscribers.forEach ((s) -> s.sendMessage (convertedMessage));
+                // ProxiedPlayer#sendMessage would serialize the components to JSON once per subscriber thus we'll serialize
+                // them a single time and hand the very same (immutable) packet to every connection instead
+                Chat packet = new Chat (ComponentSerializer.toString (convertedMessage));
+                long generation = this.grid.players ().generation ();
+
+                this.grid.executor ().deliver (this.recipients (), generation, packet);
                 return this;
         }
 
+        /**
+         * Formats a message sent by a player to this channel.
+         *
+         * @param player  The sending player.
+         * @param message The message.
+         * @return The formatted message components.
+         */
+        @Nonnull
+        public BaseComponent[] format (@Nonnull ProxiedPlayer player, @Nonnull String message) {
+                return this.template.render (this.name, player.getDisplayName (), message);
+        }
+
         /**
          * {@inheritDoc}
          */
         @Override
         public boolean isSubscribed (@Nonnull ProxiedPlayer player) {
-                return this.subscribers.contains (player);
+                int id = this.grid.players ().identifier (player);
+                return (id != -1 && this.subscribers.contains (id));
         }
 
         /**
@@ -84,7 +114,61 @@ public abstract class Channel implements IChannel {
         @Nonnull
         @Override
         public Set<ProxiedPlayer> players () {
-                return Collections.unmodifiableSet (this.subscribers);
+                long generation = this.grid.players ().generation ();
+                return this.resolve (this.subscribers, generation);
+        }
+
+        /**
+         * Retrieves an immutable snapshot of all players which are subscribed to this channel as well as another
+         * channel.
+         *
+         * @param channel The other channel.
+         * @return The {@link net.md_5.bungee.api.connection.ProxiedPlayer} set.
+         */
+        @Nonnull
+        public Set<ProxiedPlayer> players (@Nonnull Channel channel) {
+                long generation = this.grid.players ().generation ();
+                return this.resolve (this.subscribers.intersect (channel.subscribers), generation);
+        }
+
+        /**
+         * Retrieves the identifiers of all players which receive messages within this channel (including players who
+         * subscribed via a wildcard pattern).
+         *
+         * @return The identifiers.
+         */
+        @Nonnull
+        public PlayerBitmap recipients () {
+                return this.grid.wildcards ().match (this.name, this.subscribers);
+        }
+
+        /**
+         * Retrieves an immutable snapshot of the identifiers of all subscribed players.
+         *
+         * @return The identifiers.
+         */
+        @Nonnull
+        public PlayerBitmap subscribers () {
+                return this.subscribers;
+        }
+
+        /**
+         * Resolves a set of player identifiers.
+         *
+         * @param identifiers The identifiers.
+         * @param generation  The generation at which the identifiers have been retrieved.
+         * @return The {@link net.md_5.bungee.api.connection.ProxiedPlayer} set.
+         */
+        @Nonnull
+        private Set<ProxiedPlayer> resolve (@Nonnull PlayerBitmap identifiers, long generation) {
+                ImmutableSet.Builder<ProxiedPlayer> builder = ImmutableSet.builder ();
+
+                identifiers.forEach ((id) -> {
+                        ProxiedPlayer player = this.grid.players ().player (id, generation);
+                        if (player != null) { builder.add (player); }
+                });
+
+                return builder.build ();
         }
 
         /**
@@ -93,7 +177,16 @@ public abstract class Channel implements IChannel {
         @Nonnull
         @Override
         public IChannel subscribe (@Nonnull ProxiedPlayer player) {
-                this.subscribers.add (player);
+                // players who are disconnecting are silently ignored
+                this.grid.register (player, (id) -> {
+                        synchronized (this.subscriberLock) {
+                                if (this.subscribers.contains (id)) { return; }
+                                this.subscribers = this.subscribers.with (id);
+
+                                this.grid.indexSubscription (player, this);
+                        }
+                });
+
                 return this;
         }
 
@@ -103,7 +196,16 @@ public abstract class Channel implements IChannel {
         @Nonnull
         @Override
         public IChannel unsubscribe (@Nonnull ProxiedPlayer player) {
-                this.subscribers.remove (player);
+                int id = this.grid.players ().identifier (player);
+                if (id == -1) { return this; }
+
+                synchronized (this.subscriberLock) {
+                        if (!this.subscribers.contains (id)) { return this; }
+                        this.subscribers = this.subscribers.without (id);
+
+                        this.grid.removeSubscription (player, this);
+                }
+
                 return this;
         }
 
@@ -112,7 +214,15 @@ public abstract class Channel implements IChannel {
          */
         @Override
         public IChannel unsubscribeAll () {
-                this.subscribers.clear ();
+                synchronized (this.subscriberLock) {
+                        this.subscribers.forEach ((id) -> {
+                                ProxiedPlayer player = this.grid.players ().player (id);
+                                if (player != null) { this.grid.removeSubscription (player, this); }
+                        });
+
+                        this.subscribers = PlayerBitmap.EMPTY;
+                }
+
                 return this;
         }
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bungee.implementation.channel;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indexes wildcard subscriptions within the hierarchical channel namespace.
+ *
+ * Channel names are split into segments at every dot (for instance {@code bedwars.team.red}). A wildcard pattern such as
+ * {@code bedwars.*} matches every channel below its prefix (but not the channel {@code bedwars} itself) while the
+ * pattern {@code *} matches all channels. Every wildcard subscriber is stored once within the node of its prefix and
+ * resolved when a message is dispatched by walking the path of the target channel.
+ *
+ * @author Johannes Donath
+ */
+public class ChannelTrie {
+
+        /**
+         * Defines the character which separates the segments of a channel name.
+         */
+        public static final char SEPARATOR = '.';
+
+        /**
+         * Defines the segment which denotes a wildcard.
+         */
+        public static final String WILDCARD = "*";
+
+        private final Node root = new Node (null);
+
+        /**
+         * Checks whether a channel name denotes a wildcard pattern.
+         *
+         * @param name The name.
+         * @return {@code true} if a wildcard, {@code false} otherwise.
+         */
+        public static boolean isWildcard (@Nonnull String name) {
+                return (name.equals (WILDCARD) || name.endsWith (SEPARATOR + WILDCARD));
+        }
+
+        /**
+         * Retrieves the path of nodes which leads to the node representing the prefix of a wildcard pattern.
+         *
+         * @param pattern The pattern.
+         * @param create  {@code true} if missing nodes shall be created, {@code false} otherwise.
+         * @return The path (starting with the root node) or {@code null} if a node is missing.
+         */
+        @Nullable
+        private List<Node> path (@Nonnull String pattern, boolean create) {
+                if (!isWildcard (pattern)) { throw new IllegalArgumentException ("Not a wildcard pattern: " + pattern); }
+
+                List<Node> path = new ArrayList<> ();
+                Node node = this.root;
+                int end = (pattern.length () - WILDCARD.length () - 1);
+
+                path.add (node);
+
+                for (int start = 0; start < end; ) {
+                        int separator = pattern.indexOf (SEPARATOR, start);
+                        if (separator == -1 || separator > end) { separator = end; }
+
+                        String segment = pattern.substring (start, separator);
+                        node = (create ? node.children.computeIfAbsent (segment, Node::new) : node.children.get (segment));
+                        if (node == null) { return null; }
+
+                        path.add (node);
+                        start = (separator + 1);
+                }
+
+                return path;
+        }
+
+        /**
+         * Resolves the recipients of a message within a channel.
+         *
+         * @param channel     The channel name.
+         * @param subscribers The identifiers of all direct subscribers of the channel.
+         * @return The identifiers of all direct and wildcard subscribers.
+         */
+        @Nonnull
+        public PlayerBitmap match (@Nonnull String channel, @Nonnull PlayerBitmap subscribers) {
+                Node node = this.root;
+                PlayerBitmap recipients = subscribers.union (node.subscribers);
+
+                for (int start = 0, separator; (separator = channel.indexOf (SEPARATOR, start)) != -1; start = (separator + 1)) {
+                        node = node.children.get (channel.substring (start, separator));
+                        if (node == null) { break; }
+
+                        recipients = recipients.union (node.subscribers);
+                }
+
+                return recipients;
+        }
+
+        /**
+         * Adds a wildcard subscription.
+         *
+         * @param pattern The pattern.
+         * @param id      The player identifier.
+         * @return {@code true} if added, {@code false} if the player has already been subscribed.
+         *
+         * @throws java.lang.IllegalArgumentException when the pattern is not a wildcard.
+         */
+        public synchronized boolean subscribe (@Nonnull String pattern, @Nonnegative int id) throws IllegalArgumentException {
+                List<Node> path = this.path (pattern, true);
+
+                // noinspection ConstantConditions
+                Node node = path.get ((path.size () - 1));
+                if (node.subscribers.contains (id)) { return false; }
+
+                node.subscribers = node.subscribers.with (id);
+                return true;
+        }
+
+        /**
+         * Removes a wildcard subscription.
+         *
+         * @param pattern The pattern.
+         * @param id      The player identifier.
+         * @return {@code true} if removed, {@code false} if the player has not been subscribed.
+         *
+         * @throws java.lang.IllegalArgumentException when the pattern is not a wildcard.
+         */
+        public synchronized boolean unsubscribe (@Nonnull String pattern, @Nonnegative int id) throws IllegalArgumentException {
+                List<Node> path = this.path (pattern, false);
+                if (path == null) { return false; }
+
+                Node node = path.get ((path.size () - 1));
+                if (!node.subscribers.contains (id)) { return false; }
+
+                node.subscribers = node.subscribers.without (id);
+
+                // patterns are supplied by players thus nodes which are no longer in use are removed again (mutations
+                // are serialized by the trie thus no subscription may be added to a node while it is being removed)
+                for (int i = (path.size () - 1); i > 0; i--) {
+                        Node current = path.get (i);
+                        if (current.subscribers.cardinality () != 0 || !current.children.isEmpty ()) { break; }
+
+                        path.get ((i - 1)).children.remove (current.segment, current);
+                }
+
+                return true;
+        }
+
+        /**
+         * Represents a single segment within the namespace.
+         */
+        private static final class Node {
+                private final String segment;
+                private final Map<String, Node> children = new ConcurrentHashMap<> ();
+
+                /**
+                 * Stores the identifiers of all players which are subscribed to every channel below this node (guarded
+                 * by the trie for writes).
+                 */
+                private volatile PlayerBitmap subscribers = PlayerBitmap.EMPTY;
+
+                private Node (@Nullable String segment) {
+                        this.segment = segment;
+                }
+        }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bungee.implementation.channel;
+
+import net.md_5.bungee.api.connection.ProxiedPlayer;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Inspects the network connection of players.
+ *
+ * The API does not expose the state of the underlying socket thus the proxy internals (the {@code ChannelWrapper} of
+ * the {@code UserConnection} and its Netty channel) are accessed reflectively. When the proxy implementation does not
+ * provide them, every connection is considered writable.
+ *
+ * @author Johannes Donath
+ */
+class ConnectionProbe {
+        private final Logger logger;
+        private volatile Method wrapperMethod;
+        private volatile Method handleMethod;
+        private final Map<String, Method> accessors = new ConcurrentHashMap<> ();
+        private volatile boolean unsupported;
+
+        ConnectionProbe (@Nonnull Logger logger) {
+                this.logger = logger;
+        }
+
+        /**
+         * Checks whether a player's connection has been closed.
+         *
+         * @param player The player.
+         * @return {@code true} if closed, {@code false} otherwise.
+         */
+        public boolean isClosed (@Nonnull ProxiedPlayer player) {
+                return !this.query (player, "isOpen", true);
+        }
+
+        /**
+         * Checks whether the outbound buffer of a player's connection accepts further data without exceeding its high
+         * water mark.
+         *
+         * @param player The player.
+         * @return {@code true} if writable, {@code false} otherwise.
+         */
+        public boolean isWritable (@Nonnull ProxiedPlayer player) {
+                return this.query (player, "isWritable", true);
+        }
+
+        /**
+         * Invokes a boolean accessor of the Netty channel of a player.
+         *
+         * @param player   The player.
+         * @param name     The accessor name.
+         * @param fallback The value to return when the channel cannot be inspected.
+         * @return The value.
+         */
+        private boolean query (@Nonnull ProxiedPlayer player, @Nonnull String name, boolean fallback) {
+                if (this.unsupported) { return fallback; }
+
+                try {
+                        if (this.wrapperMethod == null) { this.wrapperMethod = player.getClass ().getMethod ("getCh"); }
+                        Object wrapper = this.wrapperMethod.invoke (player);
+
+                        if (this.handleMethod == null) { this.handleMethod = wrapper.getClass ().getMethod ("getHandle"); }
+                        Object channel = this.handleMethod.invoke (wrapper);
+
+                        return ((Boolean) this.accessors.computeIfAbsent (name, (n) -> {
+                                try {
+                                        return channel.getClass ().getMethod (n);
+                                } catch (NoSuchMethodException ex) {
+                                        throw new IllegalStateException ("No such channel accessor: " + n, ex);
+                                }
+                        }).invoke (channel));
+                } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException | IllegalStateException | ClassCastException ex) {
+                        this.unsupported = true;
+                        this.logger.log (Level.WARNING, "Cannot inspect player connections (slow clients will not be detected): " + ex.getMessage (), ex);
+                        return fallback;
+                }
+        }
+}
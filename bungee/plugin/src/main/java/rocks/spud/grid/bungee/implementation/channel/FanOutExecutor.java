@@ -0,0 +1,271 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bungee.implementation.channel;
+
+import net.md_5.bungee.api.connection.ProxiedPlayer;
+import net.md_5.bungee.protocol.packet.Chat;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers channel messages to their recipients.
+ *
+ * Messages to channels with less subscribers than the configured threshold are delivered on the calling thread. Larger
+ * channels are split into a fixed set of shards (every player identifier is permanently assigned to one shard) which
+ * are handed to a {@link java.util.concurrent.ForkJoinPool}. Every shard is processed by at most one thread at a time
+ * and in the order its deliveries have been submitted thus players receive the messages submitted by a single thread
+ * in order regardless of the channel size (messages submitted concurrently by different threads are not ordered).
+ *
+ * @author Johannes Donath
+ */
+public class FanOutExecutor {
+
+        /**
+         * Defines the maximum amount of deliveries processed for a single shard before the thread moves on to other
+         * shards.
+         */
+        public static final int MAXIMUM_DELIVERIES_PER_TURN = 32;
+
+        /**
+         * Defines the amount of shards per delivery thread.
+         */
+        public static final int SHARDS_PER_THREAD = 4;
+
+        private final Logger logger;
+        private final OutboundDispatcher outbound;
+        private final PlayerRegistry registry;
+        private final int threshold;
+        private final ForkJoinPool pool;
+        private final Shard[] shards;
+
+        public FanOutExecutor (@Nonnull Logger logger, @Nonnull OutboundDispatcher outbound, @Nonnull PlayerRegistry registry, @Nonnegative int threads, @Nonnegative int threshold) {
+                this.logger = logger;
+                this.outbound = outbound;
+                this.registry = registry;
+                this.threshold = threshold;
+
+                if (threshold == 0) {
+                        this.pool = null;
+                        this.shards = new Shard[0];
+                        return;
+                }
+
+                this.pool = new ForkJoinPool (threads, (p) -> {
+                        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread (p);
+                        thread.setName ("Grid Delivery #" + thread.getPoolIndex ());
+                        return thread;
+                }, null, true);
+
+                // a power of two permits us to select shards with a simple mask (player identifiers are dense thus
+                // their lower bits are distributed evenly)
+                this.shards = new Shard[Integer.highestOneBit (Math.max (1, threads * SHARDS_PER_THREAD) * 2 - 1)];
+
+                for (int i = 0; i < this.shards.length; i++) {
+                        this.shards[i] = new Shard ();
+                }
+        }
+
+        /**
+         * Delivers a packet to a set of recipients (see
+         * {@link rocks.spud.grid.bungee.implementation.channel.OutboundDispatcher}).
+         *
+         * @param recipients The recipients.
+         * @param generation The generation at which the recipients have been retrieved (see
+         *                   {@link rocks.spud.grid.bungee.implementation.channel.PlayerRegistry#generation()}).
+         * @param packet     The packet.
+         */
+        public void deliver (@Nonnull PlayerBitmap recipients, long generation, @Nonnull Chat packet) {
+                if (this.pool == null) {
+                        recipients.forEach ((id) -> {
+                                ProxiedPlayer player = this.registry.player (id, generation);
+                                if (player != null) { this.outbound.send (player, packet); }
+                        });
+
+                        return;
+                }
+
+                if (recipients.cardinality () < this.threshold) {
+                        recipients.forEach ((id) -> {
+                                ProxiedPlayer player = this.registry.player (id, generation);
+                                if (player == null) { return; }
+
+                                Shard shard = this.shards[id & (this.shards.length - 1)];
+
+                                // a player may still be waiting for a message of a larger channel in which case we'll
+                                // have to queue this message behind it (otherwise we'll claim the shard until the
+                                // message has been handed over thus later deliveries cannot overtake it)
+                                synchronized (shard.deliveries) {
+                                        if (shard.processing) {
+                                                shard.deliveries.add (() -> this.outbound.send (player, packet));
+                                                return;
+                                        }
+
+                                        shard.processing = true;
+                                }
+
+                                try {
+                                        this.outbound.send (player, packet);
+                                } catch (RuntimeException ex) {
+                                        this.logger.log (Level.SEVERE, "Cannot deliver channel message: " + ex.getMessage (), ex);
+                                } finally {
+                                        this.release (shard);
+                                }
+                        });
+
+                        return;
+                }
+
+                @SuppressWarnings ("unchecked")
+                List<ProxiedPlayer>[] partitions = new List[this.shards.length];
+
+                recipients.forEach ((id) -> {
+                        ProxiedPlayer player = this.registry.player (id, generation);
+                        if (player == null) { return; }
+
+                        int index = (id & (this.shards.length - 1));
+                        if (partitions[index] == null) { partitions[index] = new ArrayList<> (); }
+
+                        partitions[index].add (player);
+                });
+
+                for (int i = 0; i < partitions.length; i++) {
+                        List<ProxiedPlayer> partition = partitions[i];
+                        if (partition == null) { continue; }
+
+                        this.submit (this.shards[i], () -> partition.forEach ((p) -> this.outbound.send (p, packet)));
+                }
+        }
+
+        /**
+         * Processes queued deliveries of a shard until its queue is empty or its turn is over.
+         *
+         * @param shard The shard.
+         */
+        private void drain (@Nonnull Shard shard) {
+                for (int i = 0; i < MAXIMUM_DELIVERIES_PER_TURN; i++) {
+                        Runnable delivery;
+
+                        synchronized (shard.deliveries) {
+                                delivery = shard.deliveries.poll ();
+
+                                if (delivery == null) {
+                                        shard.processing = false;
+                                        return;
+                                }
+                        }
+
+                        try {
+                                delivery.run ();
+                        } catch (RuntimeException ex) {
+                                this.logger.log (Level.SEVERE, "Cannot deliver channel message: " + ex.getMessage (), ex);
+                        }
+                }
+
+                this.schedule (shard);
+        }
+
+        /**
+         * Releases a shard which has been claimed for an inline delivery and hands deliveries which have been queued in
+         * the meantime to the pool.
+         *
+         * @param shard The shard.
+         */
+        private void release (@Nonnull Shard shard) {
+                synchronized (shard.deliveries) {
+                        if (shard.deliveries.isEmpty ()) {
+                                shard.processing = false;
+                                return;
+                        }
+                }
+
+                this.schedule (shard);
+        }
+
+        /**
+         * Schedules a shard to be drained by the pool.
+         *
+         * @param shard The shard.
+         */
+        private void schedule (@Nonnull Shard shard) {
+                try {
+                        this.pool.execute (() -> this.drain (shard));
+                } catch (RejectedExecutionException ex) {
+                        synchronized (shard.deliveries) {
+                                shard.deliveries.clear ();
+                                shard.processing = false;
+                        }
+                }
+        }
+
+        /**
+         * Shuts down the pool and waits (for a limited amount of time) for messages which are still being delivered.
+         */
+        public void shutdown () {
+                if (this.pool == null) { return; }
+                this.pool.shutdown ();
+
+                try {
+                        if (!this.pool.awaitTermination (5, TimeUnit.SECONDS)) {
+                                this.logger.warning ("Discarding channel messages which could not be delivered in time");
+                                this.pool.shutdownNow ();
+                        }
+                } catch (InterruptedException ex) {
+                        this.pool.shutdownNow ();
+                        Thread.currentThread ().interrupt ();
+                }
+        }
+
+        /**
+         * Submits a delivery to a shard.
+         *
+         * @param shard    The shard.
+         * @param delivery The delivery.
+         */
+        private void submit (@Nonnull Shard shard, @Nonnull Runnable delivery) {
+                synchronized (shard.deliveries) {
+                        shard.deliveries.add (delivery);
+
+                        if (shard.processing) { return; }
+                        shard.processing = true;
+                }
+
+                this.schedule (shard);
+        }
+
+        /**
+         * Represents a set of players whose deliveries are processed sequentially.
+         */
+        private static final class Shard {
+                private final Queue<Runnable> deliveries = new ArrayDeque<> ();
+
+                /**
+                 * Indicates whether deliveries are queued or in progress (guarded by {@link #deliveries} for writes).
+                 */
+                private volatile boolean processing;
+        }
+}
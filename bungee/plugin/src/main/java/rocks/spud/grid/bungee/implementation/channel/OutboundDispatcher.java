@@ -0,0 +1,254 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bungee.implementation.channel;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.md_5.bungee.api.ChatColor;
+import net.md_5.bungee.api.chat.TextComponent;
+import net.md_5.bungee.api.connection.ProxiedPlayer;
+import net.md_5.bungee.protocol.packet.Chat;
+import rocks.spud.grid.bungee.api.configuration.IGlobalGridConfiguration;
+import rocks.spud.grid.bungee.api.configuration.OverflowPolicy;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Queues channel messages per player.
+ *
+ * Every player owns a bounded queue of messages. Queues of players whose connection is not writable (the client does
+ * not read its data fast enough) are kept until the connection recovers thus messages which the client has not
+ * received yet count towards the queue capacity. Messages which exceed the queue capacity are handled according to the
+ * configured {@link rocks.spud.grid.bungee.api.configuration.OverflowPolicy}.
+ *
+ * Optionally messages are collected for the duration of the configured flush interval and written back-to-back on
+ * every tick. Otherwise messages are written as soon as they are sent unless messages to the same player are still
+ * queued (in which case they are retried every {@link #RETRY_INTERVAL} milliseconds). Messages are never merged thus
+ * clients receive every message individually.
+ *
+ * @author Johannes Donath
+ */
+public class OutboundDispatcher {
+
+        /**
+         * Defines the amount of milliseconds between attempts to write queued messages when no flush interval has been
+         * configured.
+         */
+        public static final long RETRY_INTERVAL = 50;
+
+        private final Logger logger;
+        private final ConnectionProbe probe;
+        private final int capacity;
+        private final long flushInterval;
+        private final OverflowPolicy policy;
+        private final ScheduledExecutorService timer;
+        private final Map<ProxiedPlayer, Outbox> outboxes = new ConcurrentHashMap<> ();
+        private final Queue<Outbox> pendingOutboxes = new ConcurrentLinkedQueue<> ();
+
+        public OutboundDispatcher (@Nonnull Logger logger, @Nonnull IGlobalGridConfiguration configuration) {
+                this.logger = logger;
+                this.probe = new ConnectionProbe (logger);
+                this.capacity = configuration.outboundQueueCapacity ();
+                this.flushInterval = configuration.outboundFlushInterval ();
+                this.policy = configuration.outboundOverflowPolicy ();
+
+                // @formatter:off
+                this.timer = Executors.newSingleThreadScheduledExecutor (new ThreadFactoryBuilder ()
+                        .setNameFormat ("Grid Outbound Dispatcher")
+                        .setDaemon (true)
+                        .build ()
+                );
+                // @formatter:on
+
+                long interval = (this.flushInterval == 0 ? RETRY_INTERVAL : this.flushInterval);
+                this.timer.scheduleAtFixedRate (this::flushPending, interval, interval, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Writes all queued messages of a player unless the connection of the player is currently not writable.
+         *
+         * @param outbox The outbox.
+         * @return {@code true} if the outbox has been emptied, {@code false} if it has to be flushed again.
+         */
+        private boolean flush (@Nonnull Outbox outbox) {
+                ProxiedPlayer player = outbox.player;
+
+                while (true) {
+                        // the messages remain within the (bounded) outbox until the client catches up rather than piling
+                        // up within the connection buffers (unless the client has disconnected in the meantime)
+                        boolean closed = this.probe.isClosed (player);
+                        if (!closed && !this.probe.isWritable (player)) { return false; }
+
+                        Chat[] messages;
+
+                        synchronized (outbox.messages) {
+                                // retired outboxes are never re-used thus players who do not receive further messages
+                                // (or have disconnected in the meantime) will not occupy any memory
+                                if (closed || outbox.messages.isEmpty ()) {
+                                        outbox.messages.clear ();
+                                        outbox.retired = true;
+                                        this.outboxes.remove (player, outbox);
+                                        return true;
+                                }
+
+                                // the outbox is kept until its messages have been written thus messages sent in the
+                                // meantime are queued behind them rather than overtaking them
+                                messages = outbox.messages.toArray (new Chat[outbox.messages.size ()]);
+                                outbox.messages.clear ();
+                        }
+
+                        for (Chat message : messages) {
+                                player.unsafe ().sendPacket (message);
+                        }
+                }
+        }
+
+        /**
+         * Writes the queued messages of all players who have been sent messages since the last tick.
+         */
+        private void flushPending () {
+                List<Outbox> stalledOutboxes = new ArrayList<> ();
+                Outbox outbox;
+
+                while ((outbox = this.pendingOutboxes.poll ()) != null) {
+                        try {
+                                if (!this.flush (outbox)) { stalledOutboxes.add (outbox); }
+                        } catch (RuntimeException ex) {
+                                // an exception would cancel all future ticks thus we'll merely log it and move on
+                                this.logger.log (Level.SEVERE, "Cannot write channel messages to " + outbox.player.getName () + ": " + ex.getMessage (), ex);
+                        }
+                }
+
+                // stalled outboxes are retried on the next tick (their flag is still set thus they are queued once)
+                this.pendingOutboxes.addAll (stalledOutboxes);
+        }
+
+        /**
+         * Queues a message.
+         *
+         * @param player  The recipient.
+         * @param message The message.
+         */
+        public void send (@Nonnull ProxiedPlayer player, @Nonnull Chat message) {
+                // players without queued messages are written to right away unless messages are to be collected
+                if (this.flushInterval == 0 && !this.outboxes.containsKey (player) && this.probe.isWritable (player)) {
+                        player.unsafe ().sendPacket (message);
+                        return;
+                }
+
+                while (true) {
+                        Outbox outbox = this.outboxes.computeIfAbsent (player, Outbox::new);
+
+                        synchronized (outbox.messages) {
+                                if (outbox.retired) { continue; }
+
+                                if (outbox.messages.size () >= this.capacity) {
+                                        switch (this.policy) {
+                                                case DROP_OLDEST:
+                                                        outbox.messages.poll ();
+                                                        break;
+                                                case DROP_NEWEST:
+                                                        return;
+                                                case DISCONNECT:
+                                                        outbox.messages.clear ();
+                                                        outbox.retired = true;
+                                                        this.outboxes.remove (player, outbox);
+                                                        break;
+                                        }
+                                }
+
+                                if (!outbox.retired) {
+                                        outbox.messages.add (message);
+
+                                        if (outbox.flushScheduled) { return; }
+                                        outbox.flushScheduled = true;
+                                }
+                        }
+
+                        if (outbox.retired) {
+                                this.logger.warning ("Disconnecting " + player.getName () + " due to an excessive amount of pending channel messages");
+
+                                // TODO: Localization
+                                TextComponent component = new TextComponent ("You are receiving chat messages faster than your connection permits.");
+                                component.setColor (ChatColor.DARK_RED);
+
+                                player.disconnect (component);
+                                return;
+                        }
+
+                        this.pendingOutboxes.add (outbox);
+
+                        // the plugin is shutting down thus we'll write the message right away
+                        if (this.timer.isShutdown ()) { this.flushPending (); }
+                        return;
+                }
+        }
+
+        /**
+         * Shuts down the dispatcher (queued messages are written before the dispatcher terminates).
+         */
+        public void shutdown () {
+                this.timer.shutdown ();
+
+                try {
+                        if (!this.timer.awaitTermination (5, TimeUnit.SECONDS)) {
+                                this.logger.warning ("Discarding channel messages which could not be written in time");
+                                this.timer.shutdownNow ();
+                        }
+                } catch (InterruptedException ex) {
+                        this.timer.shutdownNow ();
+                        Thread.currentThread ().interrupt ();
+                }
+
+                // periodic ticks are cancelled upon shutdown thus we'll write the remaining messages ourselves
+                this.flushPending ();
+        }
+
+        /**
+         * Represents the queue of messages which are waiting to be written to a player.
+         */
+        private static final class Outbox {
+                private final ProxiedPlayer player;
+                private final Queue<Chat> messages = new ArrayDeque<> ();
+
+                /**
+                 * Indicates whether the outbox has been removed and may no longer be used (guarded by
+                 * {@link #messages}).
+                 */
+                private boolean retired;
+
+                /**
+                 * Indicates whether the outbox has been queued for the next tick (guarded by {@link #messages}).
+                 */
+                private boolean flushScheduled;
+
+                Outbox (@Nonnull ProxiedPlayer player) {
+                        this.player = player;
+                }
+        }
+}
@@ -16,7 +16,7 @@
  */
 package rocks.spud.grid.bungee.implementation.channel;
 
-import rocks.spud.grid.bungee.implementation.configuration.GlobalGridConfiguration;
+import rocks.spud.grid.bungee.implementation.Grid;
 
 import javax.annotation.Nonnull;
 
@@ -26,8 +26,8 @@ import javax.annotation.Nonnull;
  */
 public class PermanentChannel extends Channel {
 
-        public PermanentChannel (@Nonnull GlobalGridConfiguration configuration, @Nonnull String name) {
-                super (configuration, name);
+        public PermanentChannel (@Nonnull Grid grid, @Nonnull String name) {
+                super (grid, name);
         }
 
         /**
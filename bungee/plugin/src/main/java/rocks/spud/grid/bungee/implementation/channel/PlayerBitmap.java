@@ -0,0 +1,299 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bungee.implementation.channel;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Represents an immutable set of player identifiers (see
+ * {@link rocks.spud.grid.bungee.implementation.channel.PlayerRegistry}).
+ *
+ * Depending on which representation requires less memory, identifiers are either stored in a sorted array (sparse sets
+ * such as small temporary channels) or in a bitmap (dense sets such as the global channel). Every modification returns
+ * a new set thus instances may be shared freely between threads.
+ *
+ * @author Johannes Donath
+ */
+public final class PlayerBitmap {
+
+        /**
+         * Defines an empty set.
+         */
+        public static final PlayerBitmap EMPTY = new PlayerBitmap (new int[0], null, 0);
+
+        private final int[] array;
+        private final long[] words;
+        private final int cardinality;
+
+        private PlayerBitmap (int[] array, long[] words, @Nonnegative int cardinality) {
+                this.array = array;
+                this.words = words;
+                this.cardinality = cardinality;
+        }
+
+        /**
+         * Creates a set based on a sorted array of identifiers.
+         *
+         * @param array The identifiers.
+         * @return The set.
+         */
+        @Nonnull
+        private static PlayerBitmap ofArray (@Nonnull int[] array) {
+                if (array.length == 0) { return EMPTY; }
+
+                int length = ((array[array.length - 1] >>> 6) + 1);
+                if (array.length <= length * 2) { return new PlayerBitmap (array, null, array.length); }
+
+                long[] words = new long[length];
+
+                for (int id : array) {
+                        words[id >>> 6] |= (1L << id);
+                }
+
+                return new PlayerBitmap (null, words, array.length);
+        }
+
+        /**
+         * Creates a set based on a bitmap.
+         *
+         * @param words The bitmap.
+         * @return The set.
+         */
+        @Nonnull
+        private static PlayerBitmap ofWords (@Nonnull long[] words) {
+                int length = words.length;
+                while (length > 0 && words[length - 1] == 0) { length--; }
+
+                int cardinality = 0;
+
+                for (int i = 0; i < length; i++) {
+                        cardinality += Long.bitCount (words[i]);
+                }
+
+                if (cardinality == 0) { return EMPTY; }
+                if (cardinality > length * 2) { return new PlayerBitmap (null, (length == words.length ? words : Arrays.copyOf (words, length)), cardinality); }
+
+                int[] array = new int[cardinality];
+                int offset = 0;
+
+                for (int i = 0; i < length; i++) {
+                        for (long word = words[i]; word != 0; word &= (word - 1)) {
+                                array[offset++] = ((i << 6) + Long.numberOfTrailingZeros (word));
+                        }
+                }
+
+                return new PlayerBitmap (array, null, cardinality);
+        }
+
+        /**
+         * Retrieves the amount of identifiers within this set.
+         *
+         * @return The cardinality.
+         */
+        @Nonnegative
+        public int cardinality () {
+                return this.cardinality;
+        }
+
+        /**
+         * Checks whether this set contains an identifier.
+         *
+         * @param id The identifier.
+         * @return {@code true} if present, {@code false} otherwise.
+         */
+        public boolean contains (@Nonnegative int id) {
+                if (this.words == null) { return (Arrays.binarySearch (this.array, id) >= 0); }
+
+                int index = (id >>> 6);
+                return (index < this.words.length && (this.words[index] & (1L << id)) != 0);
+        }
+
+        /**
+         * Invokes a consumer for every identifier within this set (in ascending order).
+         *
+         * @param consumer The consumer.
+         */
+        public void forEach (@Nonnull IntConsumer consumer) {
+                if (this.words == null) {
+                        for (int id : this.array) {
+                                consumer.accept (id);
+                        }
+
+                        return;
+                }
+
+                for (int i = 0; i < this.words.length; i++) {
+                        for (long word = this.words[i]; word != 0; word &= (word - 1)) {
+                                consumer.accept ((i << 6) + Long.numberOfTrailingZeros (word));
+                        }
+                }
+        }
+
+        /**
+         * Computes the intersection of this set and another set.
+         *
+         * @param other The other set.
+         * @return The intersection.
+         */
+        @Nonnull
+        public PlayerBitmap intersect (@Nonnull PlayerBitmap other) {
+                if (this.words != null && other.words != null) {
+                        long[] words = new long[Math.min (this.words.length, other.words.length)];
+
+                        for (int i = 0; i < words.length; i++) {
+                                words[i] = (this.words[i] & other.words[i]);
+                        }
+
+                        return ofWords (words);
+                }
+
+                // at least one of the sets is sparse thus we'll probe the other set for each of its identifiers
+                PlayerBitmap sparse = (this.words == null ? this : other);
+                PlayerBitmap probed = (sparse == this ? other : this);
+
+                int[] array = new int[sparse.cardinality];
+                int length = 0;
+
+                for (int id : sparse.array) {
+                        if (probed.contains (id)) { array[length++] = id; }
+                }
+
+                return ofArray (Arrays.copyOf (array, length));
+        }
+
+        /**
+         * Computes the union of this set and another set.
+         *
+         * @param other The other set.
+         * @return The union.
+         */
+        @Nonnull
+        public PlayerBitmap union (@Nonnull PlayerBitmap other) {
+                if (other.cardinality == 0) { return this; }
+                if (this.cardinality == 0) { return other; }
+
+                if (this.words == null && other.words == null) {
+                        int[] array = new int[this.cardinality + other.cardinality];
+                        int length = 0;
+
+                        for (int i = 0, j = 0; i < this.array.length || j < other.array.length; ) {
+                                if (j == other.array.length || (i < this.array.length && this.array[i] < other.array[j]))
+                                        array[length++] = this.array[i++];
+                                else if (i == this.array.length || other.array[j] < this.array[i])
+                                        array[length++] = other.array[j++];
+                                else {
+                                        array[length++] = this.array[i++];
+                                        j++;
+                                }
+                        }
+
+                        return ofArray (Arrays.copyOf (array, length));
+                }
+
+                long[] words = new long[Math.max (this.length (), other.length ())];
+                this.copyTo (words);
+                other.copyTo (words);
+
+                return ofWords (words);
+        }
+
+        /**
+         * Sets the bits of all identifiers within this set in a bitmap.
+         *
+         * @param words The bitmap.
+         */
+        private void copyTo (@Nonnull long[] words) {
+                if (this.words == null) {
+                        for (int id : this.array) {
+                                words[id >>> 6] |= (1L << id);
+                        }
+
+                        return;
+                }
+
+                for (int i = 0; i < this.words.length; i++) {
+                        words[i] |= this.words[i];
+                }
+        }
+
+        /**
+         * Retrieves the amount of bitmap words required to represent this set.
+         *
+         * @return The amount of words.
+         */
+        @Nonnegative
+        private int length () {
+                if (this.words != null) { return this.words.length; }
+                return (this.array.length == 0 ? 0 : (this.array[this.array.length - 1] >>> 6) + 1);
+        }
+
+        /**
+         * Creates a copy of this set which additionally contains the specified identifier.
+         *
+         * @param id The identifier.
+         * @return The set.
+         */
+        @Nonnull
+        public PlayerBitmap with (@Nonnegative int id) {
+                if (this.contains (id)) { return this; }
+
+                if (this.words == null) {
+                        int index = -(Arrays.binarySearch (this.array, id) + 1);
+
+                        int[] array = new int[this.array.length + 1];
+                        System.arraycopy (this.array, 0, array, 0, index);
+                        System.arraycopy (this.array, index, array, index + 1, this.array.length - index);
+                        array[index] = id;
+
+                        return ofArray (array);
+                }
+
+                long[] words = Arrays.copyOf (this.words, Math.max (this.words.length, (id >>> 6) + 1));
+                words[id >>> 6] |= (1L << id);
+
+                return new PlayerBitmap (null, words, this.cardinality + 1);
+        }
+
+        /**
+         * Creates a copy of this set which does not contain the specified identifier.
+         *
+         * @param id The identifier.
+         * @return The set.
+         */
+        @Nonnull
+        public PlayerBitmap without (@Nonnegative int id) {
+                if (!this.contains (id)) { return this; }
+
+                if (this.words == null) {
+                        int index = Arrays.binarySearch (this.array, id);
+
+                        int[] array = new int[this.array.length - 1];
+                        System.arraycopy (this.array, 0, array, 0, index);
+                        System.arraycopy (this.array, index + 1, array, index, array.length - index);
+
+                        return ofArray (array);
+                }
+
+                long[] words = this.words.clone ();
+                words[id >>> 6] &= ~(1L << id);
+
+                return ofWords (words);
+        }
+}
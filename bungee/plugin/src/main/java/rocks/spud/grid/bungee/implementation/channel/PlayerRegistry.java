@@ -0,0 +1,248 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bungee.implementation.channel;
+
+import net.md_5.bungee.api.connection.ProxiedPlayer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Assigns dense integer identifiers to players.
+ *
+ * Identifiers are assigned when a player subscribes to their first channel and returned once the player disconnects.
+ * Returned identifiers are re-used (oldest first) before new identifiers are allocated thus the identifier space never
+ * exceeds the peak amount of players and channel memberships may be stored as
+ * {@link rocks.spud.grid.bungee.implementation.channel.PlayerBitmap}s.
+ *
+ * Every assignment is tagged with a generation. Snapshots of channel memberships are resolved against the generation
+ * which was current when they were taken (see {@link #generation()}) thus a re-used identifier is never resolved to a
+ * player who was registered after the snapshot.
+ *
+ * @author Johannes Donath
+ */
+public class PlayerRegistry {
+
+        /**
+         * Defines the initial size of the player table.
+         */
+        public static final int INITIAL_CAPACITY = 256;
+
+        private final Map<ProxiedPlayer, Registration> registrations = new ConcurrentHashMap<> ();
+        private final Queue<Integer> releasedIdentifiers = new ArrayDeque<> ();
+
+        /**
+         * Stores all players which have been retired (guarded by {@link #releasedIdentifiers}). Players are referenced
+         * weakly thus the set does not keep disconnected players reachable.
+         */
+        private final Set<ProxiedPlayer> retiredPlayers = Collections.newSetFromMap (new WeakHashMap<> ());
+
+        /**
+         * Stores the registration associated with every identifier (guarded by {@link #releasedIdentifiers} for
+         * writes).
+         */
+        private volatile AtomicReferenceArray<Registration> table = new AtomicReferenceArray<> (INITIAL_CAPACITY);
+        private volatile long generation;
+        private int nextIdentifier;
+
+        /**
+         * Retrieves the registration of a player or assigns a new identifier if none has been assigned yet.
+         *
+         * @param player The player.
+         * @return The registration or {@code null} if the player has been retired.
+         */
+        @Nullable
+        private Registration acquire (@Nonnull ProxiedPlayer player) {
+                Registration registration = this.registrations.get (player);
+                if (registration != null) { return registration; }
+
+                synchronized (this.releasedIdentifiers) {
+                        registration = this.registrations.get (player);
+                        if (registration != null) { return registration; }
+
+                        // players who subscribe while (or after) they are disconnecting would never be released again
+                        if (this.retiredPlayers.contains (player)) { return null; }
+
+                        Integer id = this.releasedIdentifiers.poll ();
+
+                        if (id == null) {
+                                id = this.nextIdentifier++;
+
+                                if (id == this.table.length ()) {
+                                        AtomicReferenceArray<Registration> table = new AtomicReferenceArray<> (this.table.length () * 2);
+
+                                        for (int i = 0; i < this.table.length (); i++) {
+                                                table.set (i, this.table.get (i));
+                                        }
+
+                                        this.table = table;
+                                }
+                        }
+
+                        registration = new Registration (player, id, ++this.generation);
+
+                        this.table.set (id, registration);
+                        this.registrations.put (player, registration);
+                        return registration;
+                }
+        }
+
+        /**
+         * Retrieves the current generation.
+         *
+         * The generation has to be retrieved before reading the membership snapshot which is resolved with it.
+         *
+         * @return The generation.
+         */
+        public long generation () {
+                return this.generation;
+        }
+
+        /**
+         * Retrieves the identifier of a player.
+         *
+         * @param player The player.
+         * @return The identifier or {@code -1} if no identifier has been assigned.
+         */
+        public int identifier (@Nonnull ProxiedPlayer player) {
+                Registration registration = this.registrations.get (player);
+                return (registration == null ? -1 : registration.id);
+        }
+
+        /**
+         * Retrieves the player an identifier has been assigned to.
+         *
+         * @param id The identifier.
+         * @return The player (if any).
+         */
+        @Nullable
+        public ProxiedPlayer player (@Nonnegative int id) {
+                return this.player (id, Long.MAX_VALUE);
+        }
+
+        /**
+         * Retrieves the player an identifier had been assigned to at a certain generation.
+         *
+         * @param id         The identifier.
+         * @param generation The generation.
+         * @return The player (if any).
+         */
+        @Nullable
+        public ProxiedPlayer player (@Nonnegative int id, long generation) {
+                AtomicReferenceArray<Registration> table = this.table;
+                Registration registration = (id < table.length () ? table.get (id) : null);
+
+                return (registration == null || registration.generation > generation ? null : registration.player);
+        }
+
+        /**
+         * Returns the identifier of a retired player.
+         *
+         * Players are expected to be removed from all channels before their identifier is released.
+         *
+         * @param player The player.
+         */
+        public void release (@Nonnull ProxiedPlayer player) {
+                synchronized (this.releasedIdentifiers) {
+                        Registration registration = this.registrations.get (player);
+                        if (registration == null || !registration.retired) { return; }
+
+                        this.registrations.remove (player);
+                        this.table.set (registration.id, null);
+                        this.releasedIdentifiers.add (registration.id);
+                }
+        }
+
+        /**
+         * Retires a player.
+         *
+         * Once this method returns, updates (see {@link #update(ProxiedPlayer, IntConsumer)}) are refused and all
+         * previously applied updates are visible to the caller thus all of the player's memberships may safely be
+         * removed before the identifier is released (see {@link #release(ProxiedPlayer)}).
+         *
+         * @param player The player.
+         * @return {@code true} if an identifier has been assigned to the player, {@code false} otherwise.
+         */
+        public boolean retire (@Nonnull ProxiedPlayer player) {
+                Registration registration;
+
+                synchronized (this.releasedIdentifiers) {
+                        this.retiredPlayers.add (player);
+                        registration = this.registrations.get (player);
+                }
+
+                if (registration == null) { return false; }
+
+                synchronized (registration) {
+                        registration.retired = true;
+                }
+
+                return true;
+        }
+
+        /**
+         * Applies an update to the memberships of a player.
+         *
+         * The update is passed the identifier of the player (which is assigned if necessary) and is executed
+         * atomically with respect to {@link #retire(ProxiedPlayer)}.
+         *
+         * @param player The player.
+         * @param update The update.
+         * @return {@code true} if applied, {@code false} if the player has been retired.
+         */
+        public boolean update (@Nonnull ProxiedPlayer player, @Nonnull IntConsumer update) {
+                Registration registration = this.acquire (player);
+                if (registration == null) { return false; }
+
+                synchronized (registration) {
+                        if (registration.retired) { return false; }
+
+                        update.accept (registration.id);
+                        return true;
+                }
+        }
+
+        /**
+         * Represents the assignment of an identifier to a player.
+         */
+        private static final class Registration {
+                private final ProxiedPlayer player;
+                private final int id;
+                private final long generation;
+
+                /**
+                 * Indicates whether the player has been retired (guarded by the registration itself).
+                 */
+                private boolean retired;
+
+                private Registration (@Nonnull ProxiedPlayer player, @Nonnegative int id, long generation) {
+                        this.player = player;
+                        this.id = id;
+                        this.generation = generation;
+                }
+        }
+}
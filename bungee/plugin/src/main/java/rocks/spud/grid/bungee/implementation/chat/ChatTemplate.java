@@ -0,0 +1,444 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bungee.implementation.chat;
+
+import net.md_5.bungee.api.ChatColor;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.ClickEvent;
+import net.md_5.bungee.api.chat.TextComponent;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Represents a pre-compiled chat format.
+ *
+ * Formats are split into literal segments and argument slots once. Literal segments are converted into a sequence of
+ * text runs and legacy formatting codes ahead of time while arguments are converted per message. Rendering a template
+ * yields the same components as passing the result of {@link java.lang.String#format(String, Object...)} to
+ * {@link net.md_5.bungee.api.chat.TextComponent#fromLegacyText(String)} (with the exception of links within literal
+ * segments which are no longer detected).
+ *
+ * Formats which use conversions other than plain string arguments ({@code %s}, {@code %1$s} and {@code %<s}) as well
+ * as {@code %%} and {@code %n} fall back to {@link java.lang.String#format(String, Object...)}.
+ *
+ * @author Johannes Donath
+ */
+public final class ChatTemplate {
+        private static final Pattern URL_PATTERN = Pattern.compile ("^(?:(https?)://)?([-\\w_\\.]{2,}\\.[a-z]{2,4})(/\\S*)?$");
+
+        private final Segment[] segments;
+        private final String fallbackFormat;
+        private final String[] boundArguments;
+
+        private ChatTemplate (@Nullable Segment[] segments, @Nullable String fallbackFormat, @Nonnull String[] boundArguments) {
+                this.segments = segments;
+                this.fallbackFormat = fallbackFormat;
+                this.boundArguments = boundArguments;
+        }
+
+        /**
+         * Creates a copy of this template which replaces an argument with a fixed value.
+         *
+         * The value is converted along with the literal segments and is ignored when passed to
+         * {@link #render(String...)} later on.
+         *
+         * @param argument The argument index (starting at zero).
+         * @param value    The value.
+         * @return The template.
+         */
+        @Nonnull
+        public ChatTemplate bind (@Nonnegative int argument, @Nonnull String value) {
+                String[] boundArguments = Arrays.copyOf (this.boundArguments, Math.max (this.boundArguments.length, argument + 1));
+                boundArguments[argument] = value;
+
+                if (this.segments == null) { return (new ChatTemplate (null, this.fallbackFormat, boundArguments)); }
+
+                List<Segment> segments = new ArrayList<> ();
+                Literal pending = null;
+
+                for (Segment segment : this.segments) {
+                        Literal literal = segment.literal;
+                        if (literal == null && segment.argument == argument) { literal = Literal.parse (value); }
+
+                        if (literal == null) {
+                                if (pending != null) { segments.add (new Segment (pending, -1)); }
+                                pending = null;
+
+                                segments.add (segment);
+                                continue;
+                        }
+
+                        pending = (pending == null ? literal : pending.concat (literal));
+                }
+
+                if (pending != null) { segments.add (new Segment (pending, -1)); }
+                return (new ChatTemplate (segments.toArray (new Segment[segments.size ()]), null, boundArguments));
+        }
+
+        /**
+         * Compiles a format.
+         *
+         * @param format The format (as accepted by {@link java.lang.String#format(String, Object...)}).
+         * @return The template.
+         */
+        @Nonnull
+        public static ChatTemplate compile (@Nonnull String format) {
+                try {
+                        return (new ChatTemplate (parse (format), null, new String[0]));
+                } catch (IllegalArgumentException ex) {
+                        return (new ChatTemplate (null, format, new String[0]));
+                }
+        }
+
+        /**
+         * Splits a format into literal segments and argument slots.
+         *
+         * @param format The format.
+         * @return The segments.
+         *
+         * @throws java.lang.IllegalArgumentException when the format contains unsupported conversions.
+         */
+        @Nonnull
+        private static Segment[] parse (@Nonnull String format) throws IllegalArgumentException {
+                List<Segment> segments = new ArrayList<> ();
+                StringBuilder literal = new StringBuilder ();
+                int ordinaryIndex = 0;
+                int previousIndex = -1;
+
+                for (int i = 0; i < format.length (); i++) {
+                        char c = format.charAt (i);
+
+                        if (c != '%') {
+                                literal.append (c);
+                                continue;
+                        }
+
+                        if (++i == format.length ()) { throw new IllegalArgumentException ("Incomplete format specifier at index " + (i - 1)); }
+                        c = format.charAt (i);
+
+                        int argument;
+
+                        if (c == '%') {
+                                literal.append ('%');
+                                continue;
+                        } else if (c == 'n') {
+                                literal.append (System.lineSeparator ());
+                                continue;
+                        } else if (c == 's') {
+                                argument = ordinaryIndex++;
+                        } else if (c == '<' && (i + 1) < format.length () && format.charAt (i + 1) == 's' && previousIndex != -1) {
+                                argument = previousIndex;
+                                i++;
+                        } else {
+                                int start = i;
+                                while (i < format.length () && Character.isDigit (format.charAt (i))) { i++; }
+
+                                if (i == start || (i + 1) >= format.length () || format.charAt (i) != '$' || format.charAt (i + 1) != 's') { throw new IllegalArgumentException ("Unsupported format specifier at index " + (start - 1)); }
+
+                                argument = (Integer.parseInt (format.substring (start, i)) - 1);
+                                if (argument < 0) { throw new IllegalArgumentException ("Illegal argument index at index " + start); }
+                                i++;
+                        }
+
+                        if (literal.length () != 0) {
+                                segments.add (new Segment (Literal.parse (literal.toString ()), -1));
+                                literal.setLength (0);
+                        }
+
+                        segments.add (new Segment (null, argument));
+                        previousIndex = argument;
+                }
+
+                if (literal.length () != 0) { segments.add (new Segment (Literal.parse (literal.toString ()), -1)); }
+                return segments.toArray (new Segment[segments.size ()]);
+        }
+
+        /**
+         * Renders a message.
+         *
+         * @param arguments The arguments (bound arguments are ignored).
+         * @return The message components.
+         *
+         * @throws java.lang.IllegalArgumentException when the format references a missing argument.
+         */
+        @Nonnull
+        public BaseComponent[] render (@Nonnull String... arguments) throws IllegalArgumentException {
+                if (this.segments == null) {
+                        Object[] mergedArguments = Arrays.copyOf (arguments, Math.max (arguments.length, this.boundArguments.length), Object[].class);
+
+                        for (int i = 0; i < this.boundArguments.length; i++) {
+                                if (this.boundArguments[i] != null) { mergedArguments[i] = this.boundArguments[i]; }
+                        }
+
+                        return TextComponent.fromLegacyText (String.format (this.fallbackFormat, mergedArguments));
+                }
+
+                Renderer renderer = new Renderer ();
+
+                for (Segment segment : this.segments) {
+                        if (segment.literal != null) {
+                                renderer.append (segment.literal);
+                                continue;
+                        }
+
+                        if (segment.argument >= arguments.length) { throw new IllegalArgumentException ("Missing format argument #" + (segment.argument + 1)); }
+                        renderer.appendLegacy (String.valueOf (arguments[segment.argument]), true);
+                }
+
+                return renderer.finish ();
+        }
+
+        /**
+         * Represents a literal segment in the form of alternating text runs and formatting codes.
+         */
+        private static final class Literal {
+                private final String source;
+                private final String[] texts;
+                private final ChatColor[] codes;
+                private final boolean dangling;
+
+                Literal (@Nonnull String source, @Nonnull String[] texts, @Nonnull ChatColor[] codes, boolean dangling) {
+                        this.source = source;
+                        this.texts = texts;
+                        this.codes = codes;
+                        this.dangling = dangling;
+                }
+
+                /**
+                 * Concatenates two literals.
+                 *
+                 * @param literal The literal to append.
+                 * @return The concatenated literal.
+                 */
+                @Nonnull
+                Literal concat (@Nonnull Literal literal) {
+                        return parse (this.source + literal.source);
+                }
+
+                /**
+                 * Converts legacy text into a literal.
+                 *
+                 * @param text The text.
+                 * @return The literal.
+                 */
+                @Nonnull
+                static Literal parse (@Nonnull String text) {
+                        List<String> texts = new ArrayList<> ();
+                        List<ChatColor> codes = new ArrayList<> ();
+                        StringBuilder builder = new StringBuilder ();
+                        boolean dangling = false;
+
+                        for (int i = 0; i < text.length (); i++) {
+                                char c = text.charAt (i);
+
+                                if (c == ChatColor.COLOR_CHAR) {
+                                        if (++i == text.length ()) {
+                                                dangling = true;
+                                                break;
+                                        }
+
+                                        ChatColor code = ChatColor.getByChar (Character.toLowerCase (text.charAt (i)));
+                                        if (code == null) { continue; }
+
+                                        texts.add (builder.toString ());
+                                        codes.add (code);
+                                        builder.setLength (0);
+                                        continue;
+                                }
+
+                                builder.append (c);
+                        }
+
+                        texts.add (builder.toString ());
+                        codes.add (null);
+
+                        return (new Literal (text, texts.toArray (new String[texts.size ()]), codes.toArray (new ChatColor[codes.size ()]), dangling));
+                }
+        }
+
+        /**
+         * Assembles message components in the same manner as
+         * {@link net.md_5.bungee.api.chat.TextComponent#fromLegacyText(String)}.
+         */
+        private static final class Renderer {
+                private final List<BaseComponent> components = new ArrayList<> ();
+                private final StringBuilder text = new StringBuilder ();
+                private TextComponent component = new TextComponent ();
+                private boolean dangling;
+
+                /**
+                 * Appends a pre-compiled literal.
+                 *
+                 * @param literal The literal.
+                 */
+                void append (@Nonnull Literal literal) {
+                        // a formatting character at the very end of the previous segment consumes the first character
+                        // of this literal which invalidates the pre-compiled runs
+                        if (this.dangling) {
+                                this.appendLegacy (literal.source, false);
+                                return;
+                        }
+
+                        for (int i = 0; i < literal.texts.length; i++) {
+                                this.text.append (literal.texts[i]);
+                                if (literal.codes[i] != null) { this.format (literal.codes[i]); }
+                        }
+
+                        this.dangling = literal.dangling;
+                }
+
+                /**
+                 * Appends a legacy text (including formatting codes).
+                 *
+                 * @param value The text.
+                 * @param links {@code true} if links shall be detected, {@code false} otherwise.
+                 */
+                void appendLegacy (@Nonnull String value, boolean links) {
+                        Matcher matcher = (links ? URL_PATTERN.matcher (value) : null);
+                        int i = 0;
+
+                        if (this.dangling && !value.isEmpty ()) {
+                                ChatColor code = ChatColor.getByChar (Character.toLowerCase (value.charAt (i++)));
+                                if (code != null) { this.format (code); }
+
+                                this.dangling = false;
+                        }
+
+                        for (; i < value.length (); i++) {
+                                char c = value.charAt (i);
+
+                                if (c == ChatColor.COLOR_CHAR) {
+                                        if (++i == value.length ()) {
+                                                this.dangling = true;
+                                                break;
+                                        }
+
+                                        ChatColor code = ChatColor.getByChar (Character.toLowerCase (value.charAt (i)));
+                                        if (code != null) { this.format (code); }
+                                        continue;
+                                }
+
+                                if (matcher == null) {
+                                        this.text.append (c);
+                                        continue;
+                                }
+
+                                int end = value.indexOf (' ', i);
+                                if (end == -1) { end = value.length (); }
+
+                                if (matcher.region (i, end).find ()) {
+                                        this.flush ();
+
+                                        String url = value.substring (i, end);
+                                        TextComponent link = new TextComponent (this.component);
+                                        link.setText (url);
+                                        link.setClickEvent (new ClickEvent (ClickEvent.Action.OPEN_URL, (url.startsWith ("http") ? url : "http://" + url)));
+                                        this.components.add (link);
+
+                                        i = (end - 1);
+                                        continue;
+                                }
+
+                                this.text.append (c);
+                        }
+                }
+
+                /**
+                 * Finishes the message.
+                 *
+                 * @return The message components.
+                 */
+                @Nonnull
+                BaseComponent[] finish () {
+                        if (this.text.length () != 0) {
+                                this.component.setText (this.text.toString ());
+                                this.components.add (this.component);
+                        }
+
+                        // the client will refuse to display empty messages
+                        if (this.components.isEmpty ()) { this.components.add (new TextComponent ("")); }
+                        return this.components.toArray (new BaseComponent[this.components.size ()]);
+                }
+
+                /**
+                 * Completes the pending text run (if any).
+                 */
+                private void flush () {
+                        if (this.text.length () == 0) { return; }
+
+                        TextComponent previous = this.component;
+                        this.component = new TextComponent (previous);
+
+                        previous.setText (this.text.toString ());
+                        this.components.add (previous);
+                        this.text.setLength (0);
+                }
+
+                /**
+                 * Applies a formatting code.
+                 *
+                 * @param code The code.
+                 */
+                private void format (@Nonnull ChatColor code) {
+                        this.flush ();
+
+                        switch (code) {
+                                case BOLD:
+                                        this.component.setBold (true);
+                                        break;
+                                case ITALIC:
+                                        this.component.setItalic (true);
+                                        break;
+                                case UNDERLINE:
+                                        this.component.setUnderlined (true);
+                                        break;
+                                case STRIKETHROUGH:
+                                        this.component.setStrikethrough (true);
+                                        break;
+                                case MAGIC:
+                                        this.component.setObfuscated (true);
+                                        break;
+                                case RESET:
+                                        code = ChatColor.WHITE;
+                                default:
+                                        this.component = new TextComponent ();
+                                        this.component.setColor (code);
+                                        break;
+                        }
+                }
+        }
+
+        /**
+         * Represents either a literal segment or an argument slot.
+         */
+        private static final class Segment {
+                private final Literal literal;
+                private final int argument;
+
+                Segment (@Nullable Literal literal, int argument) {
+                        this.literal = literal;
+                        this.argument = argument;
+                }
+        }
+}
@@ -27,11 +27,18 @@ import com.torchmind.candle.api.property.array.IStringArrayPropertyNode;
 import com.torchmind.candle.node.CommentNode;
 import com.torchmind.candle.node.ObjectNode;
 import com.torchmind.candle.node.property.BooleanPropertyNode;
+import com.torchmind.candle.node.property.FloatPropertyNode;
+import com.torchmind.candle.node.property.IntegerPropertyNode;
 import com.torchmind.candle.node.property.StringPropertyNode;
 import com.torchmind.candle.node.property.array.StringArrayPropertyNode;
 import rocks.spud.grid.bungee.api.configuration.IGlobalGridConfiguration;
+import rocks.spud.grid.bungee.api.configuration.IRateLimitConfiguration;
 import rocks.spud.grid.bungee.api.configuration.IServerGridConfiguration;
+import rocks.spud.grid.bungee.api.configuration.OverflowPolicy;
+import rocks.spud.grid.bungee.implementation.chat.ChatTemplate;
+import rocks.spud.grid.util.Compression;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.File;
@@ -72,23 +79,74 @@ public class GlobalGridConfiguration implements IGlobalGridConfiguration {
         public static final String DEFAULT_CHANNEL = "Global";
         public static final String[] DEFAULT_CHANNELS = new String[] { "Global", "Admins" };
         public static final boolean DEFAULT_REGISTER_SHORTHAND_COMMANDS = true;
+        public static final boolean DEFAULT_COMPRESSION = true;
+        public static final int DEFAULT_COMPRESSION_THRESHOLD = Compression.DEFAULT_THRESHOLD;
+        public static final int DEFAULT_WORKER_THREADS = 2;
+        public static final int DEFAULT_WORKER_QUEUE_CAPACITY = 256;
+        public static final int DEFAULT_DELIVERY_THREADS = 2;
+        public static final int DEFAULT_PARALLEL_DELIVERY_THRESHOLD = 0;
+        public static final int DEFAULT_OUTBOUND_QUEUE_CAPACITY = 64;
+        public static final int DEFAULT_OUTBOUND_FLUSH_INTERVAL = 0;
+        public static final OverflowPolicy DEFAULT_OUTBOUND_OVERFLOW_POLICY = OverflowPolicy.DROP_OLDEST;
+
+        // @formatter:off
+        public static final Map<String, RateLimitConfiguration> DEFAULT_RATE_LIMITS = ImmutableMap.<String, RateLimitConfiguration>builder ()
+                .put ("channelCreate", new RateLimitConfiguration (5, 10))
+                .put ("channelRemove", new RateLimitConfiguration (5, 10))
+                .put ("channelSubscribe", new RateLimitConfiguration (50, 100))
+                .put ("channelUnsubscribe", new RateLimitConfiguration (50, 100))
+                .put ("channelMessage", new RateLimitConfiguration (20, 40))
+                .put ("channelBroadcast", new RateLimitConfiguration (5, 10))
+                .build ();
+        // @formatter:on
 
         private final Map<String, ServerGridConfiguration> configurationMap;
 
         private final Map<String, Set<String>> autosubscribeGroups;
         private final String format;
+        private final ChatTemplate template;
         private final String defaultChannel;
         private final Set<String> channels;
         private final boolean registerShorthandCommands;
+        private final boolean compression;
+        private final int compressionThreshold;
+        private final int workerThreads;
+        private final int workerQueueCapacity;
+        private final int deliveryThreads;
+        private final int parallelDeliveryThreshold;
+        private final int outboundQueueCapacity;
+        private final long outboundFlushInterval;
+        private final OverflowPolicy outboundOverflowPolicy;
+        private final Map<String, IRateLimitConfiguration> rateLimits;
 
         public GlobalGridConfiguration (@Nonnull Candle document) {
                 createDefaults (document);
 
                 this.format = document.getString ("global.format", DEFAULT_FORMAT);
+                // noinspection ConstantConditions
+                this.template = ChatTemplate.compile (this.format);
                 this.defaultChannel = document.getString ("global.defaultChannel", DEFAULT_CHANNEL);
                 // noinspection ConstantConditions
                 this.channels = ImmutableSet.copyOf (document.getStringArray ("global.channels", DEFAULT_CHANNELS));
                 this.registerShorthandCommands = document.getBoolean ("global.registerShorthandCommands", DEFAULT_REGISTER_SHORTHAND_COMMANDS);
+                this.compression = document.getBoolean ("global.compression", DEFAULT_COMPRESSION);
+                this.compressionThreshold = Math.max (0, document.getInteger ("global.compressionThreshold", DEFAULT_COMPRESSION_THRESHOLD));
+                this.workerThreads = Math.max (1, document.getInteger ("global.workerThreads", DEFAULT_WORKER_THREADS));
+                this.workerQueueCapacity = Math.max (1, document.getInteger ("global.workerQueueCapacity", DEFAULT_WORKER_QUEUE_CAPACITY));
+                this.deliveryThreads = Math.max (1, document.getInteger ("global.deliveryThreads", DEFAULT_DELIVERY_THREADS));
+                this.parallelDeliveryThreshold = Math.max (0, document.getInteger ("global.parallelDeliveryThreshold", DEFAULT_PARALLEL_DELIVERY_THRESHOLD));
+                this.outboundQueueCapacity = Math.max (1, document.getInteger ("global.outboundQueueCapacity", DEFAULT_OUTBOUND_QUEUE_CAPACITY));
+                this.outboundFlushInterval = Math.max (0, document.getInteger ("global.outboundFlushInterval", DEFAULT_OUTBOUND_FLUSH_INTERVAL));
+                // noinspection ConstantConditions
+                this.outboundOverflowPolicy = OverflowPolicy.valueOf (document.getString ("global.outboundOverflowPolicy", DEFAULT_OUTBOUND_OVERFLOW_POLICY.name ()).toUpperCase ());
+
+                {
+                        ImmutableMap.Builder<String, IRateLimitConfiguration> rateLimitBuilder = ImmutableMap.builder ();
+
+                        document.get ("global", IObjectNode.class).get ("rateLimits", IObjectNode.class).forEach (IObjectNode.class, (o) -> rateLimitBuilder.put (o.name (), new RateLimitConfiguration (o)));
+
+                        this.rateLimits = rateLimitBuilder.build ();
+                }
 
                 {
                         ImmutableMap.Builder<String, Set<String>> autosubscribeBuilder = ImmutableMap.builder ();
@@ -207,6 +265,119 @@ public class GlobalGridConfiguration implements IGlobalGridConfiguration {
                         global.append (node);
                 }
 
+                // global.compression
+                if (!global.isPresent ("compression")) {
+                        CommentNode comment = new CommentNode (document, " Defines whether servers may negotiate the compression of large plugin messages.");
+                        global.append (comment);
+
+                        BooleanPropertyNode node = new BooleanPropertyNode (document, "compression", DEFAULT_COMPRESSION);
+                        global.append (node);
+                }
+
+                // global.compressionThreshold
+                if (!global.isPresent ("compressionThreshold")) {
+                        CommentNode comment = new CommentNode (document, " Defines the minimum size (in bytes) of plugin messages which will be compressed.");
+                        global.append (comment);
+
+                        IntegerPropertyNode node = new IntegerPropertyNode (document, "compressionThreshold", DEFAULT_COMPRESSION_THRESHOLD);
+                        global.append (node);
+                }
+
+                // global.workerThreads
+                if (!global.isPresent ("workerThreads")) {
+                        CommentNode comment = new CommentNode (document, " Defines the amount of threads which process requests received from servers.");
+                        global.append (comment);
+
+                        IntegerPropertyNode node = new IntegerPropertyNode (document, "workerThreads", DEFAULT_WORKER_THREADS);
+                        global.append (node);
+                }
+
+                // global.workerQueueCapacity
+                if (!global.isPresent ("workerQueueCapacity")) {
+                        CommentNode comment = new CommentNode (document, " Defines the maximum amount of queued requests per server (excess requests are rejected).");
+                        global.append (comment);
+
+                        IntegerPropertyNode node = new IntegerPropertyNode (document, "workerQueueCapacity", DEFAULT_WORKER_QUEUE_CAPACITY);
+                        global.append (node);
+                }
+
+                // global.deliveryThreads
+                if (!global.isPresent ("deliveryThreads")) {
+                        CommentNode comment = new CommentNode (document, " Defines the amount of threads which deliver messages of large channels.");
+                        global.append (comment);
+
+                        IntegerPropertyNode node = new IntegerPropertyNode (document, "deliveryThreads", DEFAULT_DELIVERY_THREADS);
+                        global.append (node);
+                }
+
+                // global.parallelDeliveryThreshold
+                if (!global.isPresent ("parallelDeliveryThreshold")) {
+                        CommentNode comment = new CommentNode (document, " Defines the amount of subscribers from which on channel messages are delivered in parallel (0 disables parallel delivery).");
+                        global.append (comment);
+
+                        IntegerPropertyNode node = new IntegerPropertyNode (document, "parallelDeliveryThreshold", DEFAULT_PARALLEL_DELIVERY_THRESHOLD);
+                        global.append (node);
+                }
+
+                // global.outboundQueueCapacity
+                if (!global.isPresent ("outboundQueueCapacity")) {
+                        CommentNode comment = new CommentNode (document, " Defines the maximum amount of chat messages which may be waiting to be written to a single player.");
+                        global.append (comment);
+
+                        IntegerPropertyNode node = new IntegerPropertyNode (document, "outboundQueueCapacity", DEFAULT_OUTBOUND_QUEUE_CAPACITY);
+                        global.append (node);
+                }
+
+                // global.outboundFlushInterval
+                if (!global.isPresent ("outboundFlushInterval")) {
+                        CommentNode comment = new CommentNode (document, " Defines the amount of milliseconds chat messages to the same player are collected before they are written at once (0 writes every message immediately unless the player's connection is stalled).");
+                        global.append (comment);
+
+                        IntegerPropertyNode node = new IntegerPropertyNode (document, "outboundFlushInterval", DEFAULT_OUTBOUND_FLUSH_INTERVAL);
+                        global.append (node);
+                }
+
+                // global.outboundOverflowPolicy
+                if (!global.isPresent ("outboundOverflowPolicy")) {
+                        CommentNode comment0 = new CommentNode (document, " Defines how chat messages to players with a full queue are handled:");
+                        CommentNode comment1 = new CommentNode (document, " * DROP_OLDEST => Discards the oldest queued message");
+                        CommentNode comment2 = new CommentNode (document, " * DROP_NEWEST => Discards the new message");
+                        CommentNode comment3 = new CommentNode (document, " * DISCONNECT => Disconnects the player");
+                        global.append (comment0);
+                        global.append (comment1);
+                        global.append (comment2);
+                        global.append (comment3);
+
+                        StringPropertyNode node = new StringPropertyNode (document, "outboundOverflowPolicy", DEFAULT_OUTBOUND_OVERFLOW_POLICY.name ());
+                        global.append (node);
+                }
+
+                // global.rateLimits
+                IObjectNode rateLimits;
+
+                if (!global.isPresent ("rateLimits")) {
+                        CommentNode comment0 = new CommentNode (document, " Defines the rate at which every server may issue requests of a certain type.");
+                        CommentNode comment1 = new CommentNode (document, " * rate => Sustained amount of requests per second (0 disables the limit)");
+                        CommentNode comment2 = new CommentNode (document, " * burst => Maximum amount of requests in quick succession");
+                        global.append (comment0);
+                        global.append (comment1);
+                        global.append (comment2);
+
+                        rateLimits = new ObjectNode (document, "rateLimits");
+                        global.append (rateLimits);
+                } else
+                        rateLimits = global.get ("rateLimits", IObjectNode.class);
+
+                // global.rateLimits.<operation>
+                DEFAULT_RATE_LIMITS.forEach ((n, c) -> {
+                        if (rateLimits.isPresent (n)) return;
+
+                        ObjectNode node = new ObjectNode (document, n);
+                        node.append (new FloatPropertyNode (document, "rate", c.rate ()));
+                        node.append (new IntegerPropertyNode (document, "burst", c.burst ()));
+                        rateLimits.append (node);
+                });
+
                 // global.channels
                 if (!global.isPresent ("channels")) {
                         CommentNode comment = new CommentNode (document, " Defines a list of existing channels throughout the network.");
@@ -258,6 +429,23 @@ public class GlobalGridConfiguration implements IGlobalGridConfiguration {
                 return this.channels;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean compression () {
+                return this.compression;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnegative
+        @Override
+        public int compressionThreshold () {
+                return this.compressionThreshold;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -277,6 +465,51 @@ public class GlobalGridConfiguration implements IGlobalGridConfiguration {
                 return this.defaultChannel;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public Optional<IRateLimitConfiguration> rateLimit (@Nonnull String operation) {
+                return Optional.ofNullable (this.rateLimits.get (operation));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnegative
+        @Override
+        public long outboundFlushInterval () {
+                return this.outboundFlushInterval;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public OverflowPolicy outboundOverflowPolicy () {
+                return this.outboundOverflowPolicy;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnegative
+        @Override
+        public int outboundQueueCapacity () {
+                return this.outboundQueueCapacity;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnegative
+        @Override
+        public int parallelDeliveryThreshold () {
+                return this.parallelDeliveryThreshold;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -285,6 +518,15 @@ public class GlobalGridConfiguration implements IGlobalGridConfiguration {
                 return this.registerShorthandCommands;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnegative
+        @Override
+        public int deliveryThreads () {
+                return this.deliveryThreads;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -294,4 +536,31 @@ public class GlobalGridConfiguration implements IGlobalGridConfiguration {
                 // noinspection ConstantConditions
                 return this.format;
         }
+
+        /**
+         * Retrieves the pre-compiled message format.
+         * @return The template.
+         */
+        @Nonnull
+        public ChatTemplate template () {
+                return this.template;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnegative
+        @Override
+        public int workerQueueCapacity () {
+                return this.workerQueueCapacity;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnegative
+        @Override
+        public int workerThreads () {
+                return this.workerThreads;
+        }
 }
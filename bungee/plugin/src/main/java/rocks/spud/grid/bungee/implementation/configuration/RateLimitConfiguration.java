@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bungee.implementation.configuration;
+
+import com.torchmind.candle.api.IObjectNode;
+import rocks.spud.grid.bungee.api.configuration.IRateLimitConfiguration;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Provides a per-operation rate limit configuration for {@link rocks.spud.grid.bungee.api.IGrid}.
+ * @author Johannes Donath
+ */
+public class RateLimitConfiguration implements IRateLimitConfiguration {
+        private final float rate;
+        private final int burst;
+
+        public RateLimitConfiguration (@Nonnegative float rate, @Nonnegative int burst) {
+                this.rate = rate;
+                this.burst = burst;
+        }
+
+        public RateLimitConfiguration (@Nonnull IObjectNode node) {
+                this (Math.max (0, node.getFloat ("rate", 0)), Math.max (1, node.getInteger ("burst", 1)));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnegative
+        @Override
+        public int burst () {
+                return this.burst;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnegative
+        @Override
+        public float rate () {
+                return this.rate;
+        }
+}
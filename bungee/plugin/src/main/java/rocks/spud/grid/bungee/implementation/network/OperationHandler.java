@@ -0,0 +1,45 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bungee.implementation.network;
+
+import net.md_5.bungee.api.connection.Server;
+import rocks.spud.grid.api.Operation;
+import rocks.spud.grid.util.Packet;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Handles one or more operations received from a server.
+ *
+ * Handlers are expected to consume the complete operation payload (see
+ * {@link rocks.spud.grid.api.Operation#messageType()}) as subsequent operations of a batch directly follow it.
+ *
+ * @author Johannes Donath
+ */
+@FunctionalInterface
+public interface OperationHandler {
+
+        /**
+         * Handles an operation.
+         *
+         * @param sender    The sender.
+         * @param operation The operation.
+         * @param packet    The packet (positioned at the start of the operation payload).
+         * @return The resulting error mask.
+         */
+        int handle (@Nonnull Server sender, @Nonnull Operation operation, @Nonnull Packet packet);
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bungee.implementation.network;
+
+import rocks.spud.grid.api.Operation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Maps operations to their respective {@link rocks.spud.grid.bungee.implementation.network.OperationHandler}.
+ *
+ * Handlers are stored within a table indexed by opcode which is replaced as a whole whenever a handler is registered or
+ * removed. Lookups are thus a plain array access while registrations (which generally only happen while plugins are
+ * being enabled) pay for a copy of the table.
+ *
+ * @author Johannes Donath
+ */
+public class OperationRegistry {
+        private volatile OperationHandler[] handlers = new OperationHandler[256];
+
+        /**
+         * Retrieves the handler of an operation.
+         *
+         * @param operation The operation.
+         * @return The handler or {@code null} if no handler has been registered.
+         */
+        @Nullable
+        public OperationHandler handler (@Nonnull Operation operation) {
+                return this.handlers[(operation.opcode () & 0xFF)];
+        }
+
+        /**
+         * Registers (or replaces) the handler of an operation.
+         *
+         * @param operation The operation.
+         * @param handler   The handler.
+         * @return The {@link rocks.spud.grid.bungee.implementation.network.OperationRegistry} instance.
+         *
+         * @throws java.lang.IllegalArgumentException when the operation is an envelope (such as
+         *                                            {@link rocks.spud.grid.api.Operation#BATCH}).
+         */
+        @Nonnull
+        public synchronized OperationRegistry register (@Nonnull Operation operation, @Nonnull OperationHandler handler) throws IllegalArgumentException {
+                if (operation == Operation.BATCH) { throw new IllegalArgumentException ("Cannot register handler for envelope operation " + operation); }
+
+                OperationHandler[] handlers = Arrays.copyOf (this.handlers, this.handlers.length);
+                handlers[(operation.opcode () & 0xFF)] = handler;
+                this.handlers = handlers;
+
+                return this;
+        }
+
+        /**
+         * Registers (or replaces) the handler of all operations within a sub-channel.
+         *
+         * @param subChannel The sub-channel name.
+         * @param handler    The handler.
+         * @return The {@link rocks.spud.grid.bungee.implementation.network.OperationRegistry} instance.
+         *
+         * @throws java.lang.IllegalArgumentException when no operations exist within the sub-channel.
+         */
+        @Nonnull
+        public synchronized OperationRegistry register (@Nonnull String subChannel, @Nonnull OperationHandler handler) throws IllegalArgumentException {
+                OperationHandler[] handlers = Arrays.copyOf (this.handlers, this.handlers.length);
+                boolean found = false;
+
+                for (Operation operation : Operation.values ()) {
+                        if (operation == Operation.BATCH || !operation.subChannel ().equals (subChannel)) { continue; }
+
+                        handlers[(operation.opcode () & 0xFF)] = handler;
+                        found = true;
+                }
+
+                if (!found) { throw new IllegalArgumentException ("No such sub-channel: " + subChannel); }
+
+                this.handlers = handlers;
+                return this;
+        }
+
+        /**
+         * Removes the handler of an operation.
+         *
+         * @param operation The operation.
+         * @return The {@link rocks.spud.grid.bungee.implementation.network.OperationRegistry} instance.
+         */
+        @Nonnull
+        public synchronized OperationRegistry unregister (@Nonnull Operation operation) {
+                OperationHandler[] handlers = Arrays.copyOf (this.handlers, this.handlers.length);
+                handlers[(operation.opcode () & 0xFF)] = null;
+                this.handlers = handlers;
+
+                return this;
+        }
+}
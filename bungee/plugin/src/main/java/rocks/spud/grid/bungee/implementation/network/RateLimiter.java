@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bungee.implementation.network;
+
+import com.google.common.base.CaseFormat;
+import rocks.spud.grid.api.Operation;
+import rocks.spud.grid.bungee.api.configuration.IGlobalGridConfiguration;
+import rocks.spud.grid.bungee.api.configuration.IRateLimitConfiguration;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the rate at which servers may issue requests.
+ *
+ * Every server receives its own {@link rocks.spud.grid.bungee.implementation.network.TokenBucket} per limited
+ * operation (see {@link rocks.spud.grid.bungee.api.configuration.IGlobalGridConfiguration#rateLimit(String)}).
+ * Operations within batches are counted individually. Throttled requests are counted per server and operation.
+ *
+ * @author Johannes Donath
+ */
+public class RateLimiter {
+        private static final Operation[] OPERATIONS = Operation.values ();
+
+        private final IRateLimitConfiguration[] configurations = new IRateLimitConfiguration[OPERATIONS.length];
+        private final Map<String, ServerLimits> limitMap = new ConcurrentHashMap<> ();
+        private final LongAdder[] throttled = new LongAdder[OPERATIONS.length];
+
+        public RateLimiter (@Nonnull IGlobalGridConfiguration configuration) {
+                for (Operation operation : OPERATIONS) {
+                        Optional<IRateLimitConfiguration> rateLimit = configuration.rateLimit (configurationKey (operation));
+
+                        if (rateLimit.isPresent () && rateLimit.get ().rate () > 0) { this.configurations[operation.ordinal ()] = rateLimit.get (); }
+                        this.throttled[operation.ordinal ()] = new LongAdder ();
+                }
+        }
+
+        /**
+         * Retrieves the configuration key of an operation.
+         *
+         * @param operation The operation.
+         * @return The key (such as "channelMessage").
+         */
+        @Nonnull
+        public static String configurationKey (@Nonnull Operation operation) {
+                return CaseFormat.UPPER_UNDERSCORE.to (CaseFormat.LOWER_CAMEL, operation.name ());
+        }
+
+        /**
+         * Retrieves the total amount of throttled requests of an operation.
+         *
+         * @param operation The operation.
+         * @return The amount of throttled requests.
+         */
+        @Nonnegative
+        public long throttled (@Nonnull Operation operation) {
+                return this.throttled[operation.ordinal ()].sum ();
+        }
+
+        /**
+         * Retrieves the amount of throttled requests of an operation issued by a certain server.
+         *
+         * @param server    The server name.
+         * @param operation The operation.
+         * @return The amount of throttled requests.
+         */
+        @Nonnegative
+        public long throttled (@Nonnull String server, @Nonnull Operation operation) {
+                ServerLimits limits = this.limitMap.get (server);
+                if (limits == null) { return 0; }
+
+                return limits.throttled[operation.ordinal ()].sum ();
+        }
+
+        /**
+         * Attempts to acquire permission to execute an operation on behalf of a server.
+         *
+         * @param server    The server name.
+         * @param operation The operation.
+         * @return {@code true} if permitted, {@code false} if the request has been throttled.
+         */
+        public boolean tryAcquire (@Nonnull String server, @Nonnull Operation operation) {
+                if (this.configurations[operation.ordinal ()] == null) { return true; }
+
+                ServerLimits limits = this.limitMap.computeIfAbsent (server, (n) -> new ServerLimits (this.configurations));
+                if (limits.buckets[operation.ordinal ()].tryAcquire ()) { return true; }
+
+                limits.throttled[operation.ordinal ()].increment ();
+                this.throttled[operation.ordinal ()].increment ();
+                return false;
+        }
+
+        /**
+         * Represents the buckets and counters of a single server.
+         */
+        private static final class ServerLimits {
+                private final TokenBucket[] buckets;
+                private final LongAdder[] throttled;
+
+                ServerLimits (@Nonnull IRateLimitConfiguration[] configurations) {
+                        this.buckets = new TokenBucket[configurations.length];
+                        this.throttled = new LongAdder[configurations.length];
+
+                        for (int i = 0; i < configurations.length; i++) {
+                                if (configurations[i] != null) { this.buckets[i] = new TokenBucket (configurations[i].rate (), configurations[i].burst ()); }
+                                this.throttled[i] = new LongAdder ();
+                        }
+                }
+        }
+}
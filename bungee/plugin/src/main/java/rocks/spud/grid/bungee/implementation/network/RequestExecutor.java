@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bungee.implementation.network;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Processes requests received from servers on a fixed pool of worker threads.
+ *
+ * Every {@link rocks.spud.grid.bungee.implementation.network.ServerSession} owns a bounded queue of requests which is
+ * drained by at most one worker at a time. Requests of a single server are thus processed in the order they have been
+ * received while requests of different servers are processed concurrently. Requests which exceed the queue capacity
+ * are rejected and are expected to be answered with {@link rocks.spud.grid.api.ErrorCode#OVERLOADED}.
+ *
+ * @author Johannes Donath
+ */
+public class RequestExecutor {
+
+        /**
+         * Defines the maximum amount of requests processed for a single server before the worker moves on to other
+         * servers.
+         */
+        public static final int MAXIMUM_REQUESTS_PER_TURN = 32;
+
+        private final Logger logger;
+        private final ExecutorService workers;
+        private final int capacity;
+
+        public RequestExecutor (@Nonnull Logger logger, @Nonnegative int threads, @Nonnegative int capacity) {
+                this.logger = logger;
+                this.capacity = capacity;
+
+                // @formatter:off
+                this.workers = Executors.newFixedThreadPool (threads, new ThreadFactoryBuilder ()
+                        .setNameFormat ("Grid Worker #%d")
+                        .setDaemon (true)
+                        .build ()
+                );
+                // @formatter:on
+        }
+
+        /**
+         * Processes queued requests of a session until its queue is empty or its turn is over.
+         *
+         * @param session The session.
+         */
+        private void drain (@Nonnull ServerSession session) {
+                for (int i = 0; i < MAXIMUM_REQUESTS_PER_TURN; i++) {
+                        Runnable request;
+
+                        synchronized (session.requests) {
+                                request = session.requests.poll ();
+
+                                if (request == null) {
+                                        session.processing = false;
+                                        return;
+                                }
+                        }
+
+                        try {
+                                request.run ();
+                        } catch (RuntimeException ex) {
+                                this.logger.log (Level.SEVERE, "Cannot process request of server \"" + session.getName () + "\": " + ex.getMessage (), ex);
+                        }
+                }
+
+                // give other servers a chance to be processed before continuing with the remaining requests
+                this.schedule (session);
+        }
+
+        /**
+         * Schedules a session to be drained by one of the workers.
+         *
+         * @param session The session.
+         * @return {@code true} if scheduled, {@code false} if the executor has been shut down.
+         */
+        private boolean schedule (@Nonnull ServerSession session) {
+                try {
+                        this.workers.execute (() -> this.drain (session));
+                        return true;
+                } catch (RejectedExecutionException ex) {
+                        synchronized (session.requests) {
+                                session.requests.clear ();
+                                session.processing = false;
+                        }
+
+                        return false;
+                }
+        }
+
+        /**
+         * Shuts down all workers and waits (for a limited amount of time) for requests which are still being processed.
+         */
+        public void shutdown () {
+                this.workers.shutdown ();
+
+                try {
+                        if (!this.workers.awaitTermination (5, TimeUnit.SECONDS)) {
+                                this.logger.warning ("Discarding requests which could not be processed in time");
+                                this.workers.shutdownNow ();
+                        }
+                } catch (InterruptedException ex) {
+                        this.workers.shutdownNow ();
+                        Thread.currentThread ().interrupt ();
+                }
+        }
+
+        /**
+         * Submits a request.
+         *
+         * @param session The session of the server which has sent the request.
+         * @param request The request.
+         * @return {@code true} if the request has been queued, {@code false} if it has been rejected.
+         */
+        public boolean submit (@Nonnull ServerSession session, @Nonnull Runnable request) {
+                synchronized (session.requests) {
+                        if (session.requests.size () >= this.capacity) { return false; }
+                        session.requests.add (request);
+
+                        if (session.processing) { return true; }
+                        session.processing = true;
+                }
+
+                return this.schedule (session);
+        }
+}
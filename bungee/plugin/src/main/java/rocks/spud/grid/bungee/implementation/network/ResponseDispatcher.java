@@ -0,0 +1,193 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bungee.implementation.network;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.md_5.bungee.api.config.ServerInfo;
+import rocks.spud.grid.api.Protocol;
+import rocks.spud.grid.bungee.api.configuration.IGlobalGridConfiguration;
+import rocks.spud.grid.message.BatchHeader;
+import rocks.spud.grid.message.BatchHeaderCodec;
+import rocks.spud.grid.message.Response;
+import rocks.spud.grid.message.ResponseCodec;
+import rocks.spud.grid.util.Compression;
+import rocks.spud.grid.util.Packet;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Coalesces responses to servers.
+ *
+ * Responses are collected per {@link rocks.spud.grid.bungee.implementation.network.ServerSession} and written as a
+ * single frame (see {@link rocks.spud.grid.api.Protocol#FLAG_BATCH}) once the first response has been waiting for
+ * {@link #FLUSH_DELAY} milliseconds or once the pending responses exceed {@link #FLUSH_THRESHOLD} bytes. A server which
+ * issues a multitude of requests within a single tick thus receives a single plugin message in return.
+ *
+ * @author Johannes Donath
+ */
+public class ResponseDispatcher {
+
+        /**
+         * Defines the maximum amount of milliseconds a response is delayed (a single server tick).
+         */
+        public static final long FLUSH_DELAY = 50;
+
+        /**
+         * Defines the amount of pending bytes which causes an immediate flush (well below the maximum plugin message
+         * size).
+         */
+        public static final int FLUSH_THRESHOLD = 8192;
+
+        private final Logger logger;
+        private final IGlobalGridConfiguration configuration;
+        private final String channel;
+        private final ScheduledExecutorService timer;
+
+        public ResponseDispatcher (@Nonnull Logger logger, @Nonnull IGlobalGridConfiguration configuration, @Nonnull String channel) {
+                this.logger = logger;
+                this.configuration = configuration;
+                this.channel = channel;
+
+                // @formatter:off
+                this.timer = Executors.newSingleThreadScheduledExecutor (new ThreadFactoryBuilder ()
+                        .setNameFormat ("Grid Response Dispatcher")
+                        .setDaemon (true)
+                        .build ()
+                );
+                // @formatter:on
+        }
+
+        /**
+         * Encodes a set of responses into a single frame.
+         *
+         * @param responses The responses.
+         * @return The frame.
+         */
+        @Nonnull
+        private static byte[] encode (@Nonnull Response[] responses) {
+                if (responses.length == 1) {
+                        // @formatter:off
+                        try (Packet packet = ResponseCodec.encode (
+                                        Packet.allocate (Protocol.FRAME_HEADER_SIZE + ResponseCodec.sizeOf (responses[0]))
+                                                .write (Protocol.VERSION)
+                                                .write ((byte) 0),
+                                        responses[0]
+                        )) {
+                                return packet.array ();
+                        }
+                        // @formatter:on
+                }
+
+                BatchHeader header = new BatchHeader (responses.length);
+                int size = (Protocol.FRAME_HEADER_SIZE + BatchHeaderCodec.sizeOf (header));
+
+                for (Response response : responses) {
+                        size += ResponseCodec.sizeOf (response);
+                }
+
+                try (Packet packet = Packet.allocate (size)) {
+                        BatchHeaderCodec.encode (packet.write (Protocol.VERSION).write (Protocol.FLAG_BATCH), header);
+
+                        for (Response response : responses) {
+                                ResponseCodec.encode (packet, response);
+                        }
+
+                        return packet.array ();
+                }
+        }
+
+        /**
+         * Writes all pending responses of a session.
+         *
+         * @param session The session.
+         * @param server  The server to write to.
+         */
+        public void flush (@Nonnull ServerSession session, @Nonnull ServerInfo server) {
+                Response[] responses;
+
+                synchronized (session.responses) {
+                        session.flushScheduled = false;
+                        if (session.responses.isEmpty ()) { return; }
+
+                        responses = session.responses.toArray (new Response[session.responses.size ()]);
+                        session.responses.clear ();
+                        session.responsesSize = 0;
+                }
+
+                byte[] frame = encode (responses);
+
+                if (session.isCompressionEnabled ()) {
+                        frame = Compression.compress (frame, this.configuration.compressionThreshold ());
+                }
+
+                server.sendData (this.channel, frame);
+        }
+
+        /**
+         * Queues a response.
+         *
+         * @param session  The session of the server the response is addressed to.
+         * @param server   The server the response is addressed to.
+         * @param response The response.
+         */
+        public void send (@Nonnull ServerSession session, @Nonnull ServerInfo server, @Nonnull Response response) {
+                boolean flush;
+                boolean schedule;
+
+                synchronized (session.responses) {
+                        session.responses.add (response);
+                        session.responsesSize += ResponseCodec.sizeOf (response);
+
+                        flush = (session.responsesSize >= FLUSH_THRESHOLD);
+                        schedule = (!flush && !session.flushScheduled);
+                        if (schedule) { session.flushScheduled = true; }
+                }
+
+                if (flush) {
+                        this.flush (session, server);
+                } else if (schedule) {
+                        try {
+                                this.timer.schedule (() -> this.flush (session, server), FLUSH_DELAY, TimeUnit.MILLISECONDS);
+                        } catch (RejectedExecutionException ex) {
+                                // the plugin is shutting down thus we'll write the response right away
+                                this.flush (session, server);
+                        }
+                }
+        }
+
+        /**
+         * Shuts down the dispatcher (pending responses are written before the dispatcher terminates).
+         */
+        public void shutdown () {
+                this.timer.shutdown ();
+
+                try {
+                        if (!this.timer.awaitTermination (5, TimeUnit.SECONDS)) {
+                                this.logger.warning ("Discarding responses which could not be written in time");
+                                this.timer.shutdownNow ();
+                        }
+                } catch (InterruptedException ex) {
+                        this.timer.shutdownNow ();
+                        Thread.currentThread ().interrupt ();
+                }
+        }
+}
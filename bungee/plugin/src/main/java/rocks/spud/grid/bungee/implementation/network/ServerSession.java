@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bungee.implementation.network;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import rocks.spud.grid.message.Response;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents the state negotiated with a single server (identified by its name).
+ *
+ * @author Johannes Donath
+ */
+public class ServerSession {
+
+        /**
+         * Defines the maximum amount of responses which are kept per server in order to answer retransmitted requests.
+         */
+        public static final int REPLAY_CACHE_SIZE = 256;
+
+        /**
+         * Defines the amount of seconds after which a response can no longer be replayed.
+         */
+        public static final int REPLAY_CACHE_EXPIRY = 30;
+
+        private final String name;
+        private volatile boolean compression;
+        private final Cache<Integer, int[]> cachedResults = CacheBuilder.newBuilder ().maximumSize (REPLAY_CACHE_SIZE).expireAfterWrite (REPLAY_CACHE_EXPIRY, TimeUnit.SECONDS).build ();
+
+        // guarded by requests (see RequestExecutor)
+        final Queue<Runnable> requests = new ArrayDeque<> ();
+        boolean processing;
+
+        // guarded by responses (see ResponseDispatcher)
+        final List<Response> responses = new ArrayList<> ();
+        int responsesSize;
+        boolean flushScheduled;
+
+        public ServerSession (@Nonnull String name) {
+                this.name = name;
+        }
+
+        /**
+         * Stores the results of a processed request in order to answer retransmissions of the same request.
+         *
+         * @param requestID The request identifier.
+         * @param results   The resulting error masks.
+         */
+        public void cacheResults (int requestID, @Nonnull int[] results) {
+                this.cachedResults.put (requestID, results);
+        }
+
+        /**
+         * Retrieves the results of a previously processed request (if still known).
+         *
+         * @param requestID The request identifier.
+         * @return The resulting error masks or {@code null} if the request is unknown.
+         */
+        @Nullable
+        public int[] getCachedResults (int requestID) {
+                return this.cachedResults.getIfPresent (requestID);
+        }
+
+        /**
+         * Forgets the results of all previously processed requests.
+         *
+         * This method is called whenever a server starts a new session as it will also start over with its request
+         * identifiers.
+         */
+        public void clearCachedResults () {
+                this.cachedResults.invalidateAll ();
+        }
+
+        /**
+         * Retrieves the server name.
+         *
+         * @return The name.
+         */
+        @Nonnull
+        public String getName () {
+                return this.name;
+        }
+
+        /**
+         * Checks whether responses to this server may be compressed.
+         *
+         * @return True if compression has been negotiated.
+         */
+        public boolean isCompressionEnabled () {
+                return this.compression;
+        }
+
+        /**
+         * Defines whether responses to this server may be compressed.
+         *
+         * @param compression True if compression has been negotiated.
+         */
+        public void setCompressionEnabled (boolean compression) {
+                this.compression = compression;
+        }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.bungee.implementation.network;
+
+import javax.annotation.Nonnegative;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provides a lock-free token bucket.
+ *
+ * Instead of tracking the amount of available tokens (which would require a second field for the time of the last
+ * refill) the bucket stores the point in time at which it will be full again. Acquiring a token pushes this point back
+ * by a single emission interval while a bucket which would have to be pushed back beyond its capacity rejects the
+ * request. The complete state thus fits into a single {@link java.util.concurrent.atomic.AtomicLong}.
+ *
+ * @author Johannes Donath
+ */
+public class TokenBucket {
+        private final long interval;
+        private final long tolerance;
+        private final AtomicLong fullAt;
+
+        public TokenBucket (@Nonnegative float rate, @Nonnegative int burst) throws IllegalArgumentException {
+                if (rate <= 0) { throw new IllegalArgumentException ("Rate must be positive"); }
+                if (burst < 1) { throw new IllegalArgumentException ("Burst must be positive"); }
+
+                this.interval = Math.max (1, (long) (TimeUnit.SECONDS.toNanos (1) / (double) rate));
+                this.tolerance = (this.interval * (burst - 1));
+                this.fullAt = new AtomicLong (System.nanoTime ());
+        }
+
+        /**
+         * Attempts to acquire a single token.
+         *
+         * @return {@code true} if a token has been acquired, {@code false} if the bucket is empty.
+         */
+        public boolean tryAcquire () {
+                long now = System.nanoTime ();
+
+                while (true) {
+                        long fullAt = this.fullAt.get ();
+                        long base = ((now - fullAt) > 0 ? now : fullAt);
+
+                        if ((base - now) > this.tolerance) { return false; }
+                        if (this.fullAt.compareAndSet (fullAt, (base + this.interval))) { return true; }
+                }
+        }
+}
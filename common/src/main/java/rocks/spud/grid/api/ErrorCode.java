@@ -31,11 +31,11 @@ public enum ErrorCode {
         // Generic Errors
         SUCCESS (0x0),          // => 0b0000000 => 0 => 0x0
         DUPLICATE (0x1),        // => 0b0000001 => 1 => 0x1
-        // => 0b0000010 => 2 => 0x2
-        // => 0b0000100 => 4 => 0x4
-        // => 0b0001000 => 8 => 0x8
-        // => 0b0010000 => 16 => 0x10
-        // => 0b0100000 => 32 => 0x20
+        UNKNOWN_OPERATION (0x2),// => 0b0000010 => 2 => 0x2
+        INTERNAL (0x4),         // => 0b0000100 => 4 => 0x4
+        UNSUPPORTED (0x8),      // => 0b0001000 => 8 => 0x8
+        OVERLOADED (0x10),      // => 0b0010000 => 16 => 0x10
+        THROTTLED (0x20),       // => 0b0100000 => 32 => 0x20
         // => 0b1000000 => 64 => 0x40
 
         // Registry Errors
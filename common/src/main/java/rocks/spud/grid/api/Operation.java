@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.api;
+
+import rocks.spud.grid.message.BatchHeader;
+import rocks.spud.grid.message.BatchHeaderCodec;
+import rocks.spud.grid.message.ChannelBroadcastRequest;
+import rocks.spud.grid.message.ChannelBroadcastRequestCodec;
+import rocks.spud.grid.message.ChannelCreateRequest;
+import rocks.spud.grid.message.ChannelCreateRequestCodec;
+import rocks.spud.grid.message.ChannelMessageRequest;
+import rocks.spud.grid.message.ChannelMessageRequestCodec;
+import rocks.spud.grid.message.ChannelRemoveRequest;
+import rocks.spud.grid.message.ChannelRemoveRequestCodec;
+import rocks.spud.grid.message.ChannelSubscribeRequest;
+import rocks.spud.grid.message.ChannelSubscribeRequestCodec;
+import rocks.spud.grid.message.ChannelUnsubscribeRequest;
+import rocks.spud.grid.message.ChannelUnsubscribeRequestCodec;
+import rocks.spud.grid.message.HandshakeRequest;
+import rocks.spud.grid.message.HandshakeRequestCodec;
+import rocks.spud.grid.util.Packet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.Consumer;
+
+/**
+ * Provides a list of known operations within the network protocol.
+ *
+ * Every request identifies its operation by a single byte (the opcode) which directly follows the protocol revision.
+ * The opcode is followed by the request identifier and the operation payload which is laid out as declared by the
+ * respective message type (see {@link rocks.spud.grid.annotation.Message}).
+ *
+ * @author Johannes Donath
+ */
+public enum Operation {
+        // Channel Management
+        CHANNEL_CREATE (0x01, "Channel", ChannelCreateRequest.class, ChannelCreateRequestCodec::skip),
+        CHANNEL_REMOVE (0x02, "Channel", ChannelRemoveRequest.class, ChannelRemoveRequestCodec::skip),
+
+        // Subscriptions
+        CHANNEL_SUBSCRIBE (0x03, "Channel", ChannelSubscribeRequest.class, ChannelSubscribeRequestCodec::skip),
+        CHANNEL_UNSUBSCRIBE (0x04, "Channel", ChannelUnsubscribeRequest.class, ChannelUnsubscribeRequestCodec::skip),
+
+        // Messaging
+        CHANNEL_MESSAGE (0x05, "Channel", ChannelMessageRequest.class, ChannelMessageRequestCodec::skip),
+        CHANNEL_BROADCAST (0x06, "Channel", ChannelBroadcastRequest.class, ChannelBroadcastRequestCodec::skip),
+
+        // Envelopes
+        BATCH (0x10, "Batch", BatchHeader.class, Operation::skipBatch),
+
+        // Session Management
+        SESSION_HANDSHAKE (0x20, "Session", HandshakeRequest.class, HandshakeRequestCodec::skip);
+
+        private static final Operation[] OPERATIONS = new Operation[256];
+
+        private final byte opcode;
+        private final String subChannel;
+        private final Class<?> messageType;
+        private final Consumer<Packet> skipper;
+
+        static {
+                for (Operation operation : values ()) {
+                        OPERATIONS[(operation.opcode & 0xFF)] = operation;
+                }
+        }
+
+        Operation (int opcode, @Nonnull String subChannel, @Nonnull Class<?> messageType, @Nonnull Consumer<Packet> skipper) {
+                this.opcode = ((byte) opcode);
+                this.subChannel = subChannel;
+                this.messageType = messageType;
+                this.skipper = skipper;
+        }
+
+        /**
+         * Retrieves the operation which is identified by a certain opcode.
+         *
+         * @param opcode The opcode.
+         * @return The operation or {@code null} if no such operation exists.
+         */
+        @Nullable
+        public static Operation of (byte opcode) {
+                return OPERATIONS[(opcode & 0xFF)];
+        }
+
+        /**
+         * Retrieves the type of message which represents the payload of this operation.
+         *
+         * @return The message type.
+         */
+        @Nonnull
+        public Class<?> messageType () {
+                return this.messageType;
+        }
+
+        /**
+         * Retrieves the opcode which identifies this operation on the wire.
+         *
+         * @return The opcode.
+         */
+        public byte opcode () {
+                return this.opcode;
+        }
+
+        /**
+         * Skips the payload of this operation.
+         *
+         * @param packet The packet to skip the payload in.
+         */
+        public void skip (@Nonnull Packet packet) {
+                this.skipper.accept (packet);
+        }
+
+        /**
+         * Skips the payload of a batch (including all of its operations).
+         *
+         * @param packet The packet to skip the payload in.
+         * @throws java.lang.IllegalStateException when the batch contains an unknown operation.
+         */
+        private static void skipBatch (@Nonnull Packet packet) throws IllegalStateException {
+                BatchHeader header = BatchHeaderCodec.decode (packet);
+
+                for (int i = 0; i < header.getCount (); i++) {
+                        byte opcode = packet.readByte ();
+                        Operation operation = of (opcode);
+
+                        if (operation == null) { throw new IllegalStateException ("Unknown opcode within batch: 0x" + Integer.toHexString ((opcode & 0xFF))); }
+                        operation.skip (packet);
+                }
+        }
+
+        /**
+         * Retrieves the name of the sub-channel which handles this operation.
+         *
+         * @return The name.
+         */
+        @Nonnull
+        public String subChannel () {
+                return this.subChannel;
+        }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.api;
+
+/**
+ * Provides constants which describe the network protocol spoken between the proxy and its servers.
+ *
+ * Every message starts with a single byte which indicates the protocol revision it has been encoded with followed by a
+ * single byte of flags. Messages encoded with a different revision are rejected by both sides.
+ *
+ * @author Johannes Donath
+ */
+public final class Protocol {
+
+        /**
+         * Defines the current protocol revision.
+         *
+         * Revision 2 replaced the fixed-width length prefixes and error masks with VarInts while revision 3 replaced the
+         * sub-channel and action names with single byte opcodes (see {@link rocks.spud.grid.api.Operation}). Revision 4
+         * introduced batches and thus replaced the single error mask within responses with an array of masks (see
+         * {@link rocks.spud.grid.message.Response}). Revision 5 introduced the flags byte and optional compression while
+         * revision 6 permits multiple responses to be coalesced into a single frame.
+         */
+        public static final byte VERSION = 6;
+
+        /**
+         * Defines the size of the frame header (protocol revision and flags) in bytes.
+         */
+        public static final int FRAME_HEADER_SIZE = (Byte.BYTES * 2);
+
+        /**
+         * Indicates that the frame body has been compressed (see {@link rocks.spud.grid.util.Compression}).
+         */
+        public static final byte FLAG_COMPRESSED = 0x01;
+
+        /**
+         * Indicates that the frame body consists of a {@link rocks.spud.grid.message.BatchHeader} followed by the
+         * specified amount of {@link rocks.spud.grid.message.Response}s (instead of a single response).
+         */
+        public static final byte FLAG_BATCH = 0x02;
+
+        private Protocol () {
+        }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.message;
+
+import rocks.spud.grid.annotation.Field;
+import rocks.spud.grid.annotation.Message;
+
+import javax.annotation.Nonnegative;
+
+/**
+ * Represents the payload header of a {@link rocks.spud.grid.api.Operation#BATCH} request.
+ *
+ * The header is followed by the specified amount of operations each of which consists of its opcode and its regular
+ * payload (request identifiers are omitted as the batch is answered by a single response).
+ *
+ * Frames flagged with {@link rocks.spud.grid.api.Protocol#FLAG_BATCH} use the same header in order to indicate the
+ * amount of responses they contain.
+ *
+ * @author Johannes Donath
+ */
+@Message
+public class BatchHeader {
+        @Field (value = 0, encoding = Field.Encoding.VARIABLE)
+        final int count;
+
+        public BatchHeader (@Nonnegative int count) {
+                this.count = count;
+        }
+
+        /**
+         * Retrieves the amount of operations (or responses) within the batch.
+         *
+         * @return The amount of operations (or responses).
+         */
+        @Nonnegative
+        public int getCount () {
+                return this.count;
+        }
+}
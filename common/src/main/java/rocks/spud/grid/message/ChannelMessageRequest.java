@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.message;
+
+import rocks.spud.grid.annotation.Field;
+import rocks.spud.grid.annotation.Message;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents the payload of a {@link rocks.spud.grid.api.Operation#CHANNEL_MESSAGE} request.
+ *
+ * @author Johannes Donath
+ */
+@Message
+public class ChannelMessageRequest {
+        @Field (0)
+        final String channel;
+
+        @Field (1)
+        final String message;
+
+        public ChannelMessageRequest (@Nonnull String channel, @Nonnull String message) {
+                this.channel = channel;
+                this.message = message;
+        }
+
+        /**
+         * Retrieves the channel name.
+         *
+         * @return The channel name.
+         */
+        @Nonnull
+        public String getChannel () {
+                return this.channel;
+        }
+
+        /**
+         * Retrieves the message.
+         *
+         * @return The message.
+         */
+        @Nonnull
+        public String getMessage () {
+                return this.message;
+        }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.message;
+
+import rocks.spud.grid.annotation.Field;
+import rocks.spud.grid.annotation.Message;
+
+/**
+ * Represents the payload of a {@link rocks.spud.grid.api.Operation#SESSION_HANDSHAKE} request.
+ *
+ * Servers announce the features they support when they first contact the proxy. The proxy responds with
+ * {@link rocks.spud.grid.api.ErrorCode#UNSUPPORTED} when it does not agree to enable the requested features.
+ *
+ * @author Johannes Donath
+ */
+@Message
+public class HandshakeRequest {
+        @Field (0)
+        final boolean compression;
+
+        public HandshakeRequest (boolean compression) {
+                this.compression = compression;
+        }
+
+        /**
+         * Checks whether the server requests compression to be enabled.
+         *
+         * @return True if compression is requested.
+         */
+        public boolean isCompression () {
+                return this.compression;
+        }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.message;
+
+import rocks.spud.grid.annotation.Field;
+import rocks.spud.grid.annotation.Message;
+
+/**
+ * Represents the header which follows the protocol revision within every request.
+ *
+ * @author Johannes Donath
+ */
+@Message
+public class RequestHeader {
+        @Field (0)
+        final byte opcode;
+
+        @Field (value = 1, encoding = Field.Encoding.VARIABLE)
+        final int requestID;
+
+        public RequestHeader (byte opcode, int requestID) {
+                this.opcode = opcode;
+                this.requestID = requestID;
+        }
+
+        /**
+         * Retrieves the operation opcode.
+         *
+         * @return The operation opcode.
+         */
+        public byte getOpcode () {
+                return this.opcode;
+        }
+
+        /**
+         * Retrieves the request identifier.
+         *
+         * @return The request identifier.
+         */
+        public int getRequestID () {
+                return this.requestID;
+        }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.message;
+
+import rocks.spud.grid.annotation.Field;
+import rocks.spud.grid.annotation.Message;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Represents the response to a request (following the protocol revision).
+ *
+ * Responses carry one error mask per operation (e.g. a single mask for regular requests and one mask for every
+ * operation within a batch in their original order).
+ *
+ * @author Johannes Donath
+ */
+@Message
+public class Response {
+        @Field (value = 0, encoding = Field.Encoding.VARIABLE)
+        final int requestID;
+
+        @Field (value = 1, encoding = Field.Encoding.VARIABLE)
+        final int[] results;
+
+        public Response (int requestID, @Nonnull int[] results) {
+                this.requestID = requestID;
+                this.results = results;
+        }
+
+        /**
+         * Retrieves the identifier of the original request.
+         *
+         * @return The identifier of the original request.
+         */
+        public int getRequestID () {
+                return this.requestID;
+        }
+
+        /**
+         * Retrieves the resulting error masks.
+         *
+         * @return The resulting error masks.
+         */
+        @Nonnull
+        public int[] getResults () {
+                return this.results;
+        }
+}
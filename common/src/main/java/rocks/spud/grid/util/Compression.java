@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import rocks.spud.grid.api.Protocol;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Provides utility methods for compressing and decompressing frame bodies.
+ *
+ * Compressed frames carry the {@link rocks.spud.grid.api.Protocol#FLAG_COMPRESSED} flag and replace their body with
+ * the VarInt encoded length of the original body followed by its deflated representation. Deflaters and inflaters are
+ * kept per thread and re-used as their creation is comparably expensive.
+ *
+ * @author Johannes Donath
+ */
+public final class Compression {
+
+        /**
+         * Defines the default body size (in bytes) below which frames are never compressed.
+         */
+        public static final int DEFAULT_THRESHOLD = 256;
+
+        /**
+         * Defines the maximum permitted size of an inflated body (in bytes).
+         */
+        public static final int MAXIMUM_LENGTH = (1 << 21);
+
+        private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial (Deflater::new);
+        private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial (Inflater::new);
+
+        private Compression () {
+        }
+
+        /**
+         * Compresses the body of an encoded frame.
+         *
+         * Frames with bodies below the threshold as well as frames which do not shrink when compressed are returned
+         * as-is.
+         *
+         * @param frame     The encoded frame (including its header).
+         * @param threshold The minimum body size in bytes.
+         * @return The (possibly) compressed frame.
+         */
+        @Nonnull
+        public static byte[] compress (@Nonnull byte[] frame, @Nonnegative int threshold) {
+                int length = (frame.length - Protocol.FRAME_HEADER_SIZE);
+                if (length <= 0 || length < threshold) { return frame; }
+
+                // the compressed frame may at most be as large as the original frame, otherwise we'll just stick with
+                // the original
+                Packet packet = Packet.allocate (frame.length);
+                packet.write (frame[0]).write (((byte) (frame[1] | Protocol.FLAG_COMPRESSED))).writeVarInt (length);
+
+                ByteBuf buffer = packet.buffer ();
+                Deflater deflater = DEFLATER.get ();
+
+                try {
+                        deflater.setInput (frame, Protocol.FRAME_HEADER_SIZE, length);
+                        deflater.finish ();
+
+                        while (!deflater.finished () && buffer.isWritable ()) {
+                                buffer.writerIndex ((buffer.writerIndex () + deflater.deflate (buffer.array (), (buffer.arrayOffset () + buffer.writerIndex ()), buffer.writableBytes ())));
+                        }
+
+                        if (!deflater.finished () || buffer.writerIndex () >= frame.length) { return frame; }
+                        return Arrays.copyOf (buffer.array (), buffer.writerIndex ());
+                } finally {
+                        deflater.reset ();
+                }
+        }
+
+        /**
+         * Decompresses the body of a compressed frame.
+         *
+         * @param packet The packet (positioned directly behind the frame header).
+         * @return A packet which contains the decompressed body.
+         *
+         * @throws java.lang.IllegalStateException when the body is malformed or exceeds {@link #MAXIMUM_LENGTH}.
+         */
+        @Nonnull
+        public static Packet decompress (@Nonnull Packet packet) throws IllegalStateException {
+                int length = packet.readVarInt ();
+                if (length < 0 || length > MAXIMUM_LENGTH) { throw new IllegalStateException ("Malformed compressed frame: Length of " + length + " exceeds the maximum of " + MAXIMUM_LENGTH + " bytes"); }
+
+                ByteBuf buffer = packet.buffer ();
+                Inflater inflater = INFLATER.get ();
+
+                // the additional byte permits us to detect bodies which exceed their announced length
+                byte[] output = new byte[(length + 1)];
+                int inflated = 0;
+
+                try {
+                        if (buffer.hasArray ()) {
+                                inflater.setInput (buffer.array (), (buffer.arrayOffset () + buffer.readerIndex ()), buffer.readableBytes ());
+                        } else {
+                                byte[] input = new byte[buffer.readableBytes ()];
+                                buffer.getBytes (buffer.readerIndex (), input);
+                                inflater.setInput (input);
+                        }
+
+                        while (!inflater.finished () && inflated < output.length) {
+                                int count = inflater.inflate (output, inflated, (output.length - inflated));
+                                if (count == 0 && (inflater.needsInput () || inflater.needsDictionary ())) { break; }
+
+                                inflated += count;
+                        }
+
+                        if (!inflater.finished () || inflated != length) { throw new IllegalStateException ("Malformed compressed frame: Expected " + length + " bytes but got " + inflated + " bytes"); }
+                } catch (DataFormatException ex) {
+                        throw new IllegalStateException ("Malformed compressed frame: " + ex.getMessage (), ex);
+                } finally {
+                        inflater.reset ();
+                }
+
+                buffer.skipBytes (buffer.readableBytes ());
+                return Packet.wrap (Unpooled.wrappedBuffer (output, 0, length));
+        }
+}
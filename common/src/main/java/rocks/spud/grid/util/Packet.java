@@ -17,9 +17,11 @@
 package rocks.spud.grid.util;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import rocks.spud.grid.api.ErrorCode;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.nio.charset.Charset;
@@ -30,26 +32,64 @@ import java.util.UUID;
 /**
  * Provides a simple interface for reading and/or writing data from/into {@link io.netty.buffer.ByteBuf} instances.
  *
+ * Packets created via {@link #pooled()} borrow their memory from a shared pool and thus need to be released once they
+ * are no longer needed (either via {@link #release()} or by using them within a try-with-resources block).
+ *
  * @author Johannes Donath
  */
-public class Packet {
+public class Packet implements AutoCloseable {
         public static final Charset CHARSET = StandardCharsets.UTF_8;
+        public static final int DEFAULT_POOLED_CAPACITY = 256;
 
         private final ByteBuf buffer;
+        private final boolean exact;
 
         private Packet (@Nonnull ByteBuf buffer) {
+                this (buffer, false);
+        }
+
+        private Packet (@Nonnull ByteBuf buffer, boolean exact) {
                 this.buffer = buffer;
+                this.exact = exact;
+        }
+
+        /**
+         * Creates an empty {@link rocks.spud.grid.util.Packet} which is backed by an array of exactly the specified size.
+         *
+         * Once the packet has been filled completely, {@link #array()} will hand out the backing array as-is instead of
+         * copying its contents. The size is expected to be computed beforehand (see {@link #sizeOf(String)} and its
+         * overloads).
+         *
+         * @param size The exact packet size in bytes.
+         * @return The empty {@link rocks.spud.grid.util.Packet}.
+         */
+        @Nonnull
+        public static Packet allocate (@Nonnegative int size) {
+                ByteBuf buffer = Unpooled.wrappedBuffer (new byte[size]);
+                buffer.clear ();
+
+                return (new Packet (buffer, true));
         }
 
         /**
          * Retrieves a byte array representation.
          *
+         * Note: Packets created via {@link #allocate(int)} return their backing array without copying it as long as they
+         * have been filled completely and have not been read from.
+         *
          * @return The array.
          */
         @Nonnull
         public byte[] array () {
-                byte[] array = new byte[this.buffer ().readableBytes ()];
-                this.buffer ().readBytes (array);
+                ByteBuf buffer = this.buffer ();
+
+                if (this.exact && buffer.readerIndex () == 0 && buffer.writerIndex () == buffer.capacity ()) {
+                        buffer.readerIndex (buffer.writerIndex ());
+                        return buffer.array ();
+                }
+
+                byte[] array = new byte[buffer.readableBytes ()];
+                buffer.readBytes (array);
                 return array;
         }
 
@@ -63,6 +103,15 @@ public class Packet {
                 return this.buffer;
         }
 
+        /**
+         * Releases the wrapped {@link io.netty.buffer.ByteBuf} (if it has not been released yet).
+         */
+        @Override
+        public void close () {
+                if (this.buffer ().refCnt () == 0) { return; }
+                this.release ();
+        }
+
         /**
          * Creates an empty wrapped {@link io.netty.buffer.ByteBuf} instance.
          *
@@ -72,6 +121,31 @@ public class Packet {
                 return (new Packet (Unpooled.buffer ()));
         }
 
+        /**
+         * Creates an empty {@link rocks.spud.grid.util.Packet} backed by a pooled {@link io.netty.buffer.ByteBuf}.
+         *
+         * Note: The returned packet has to be released once it is no longer needed.
+         *
+         * @return The empty {@link rocks.spud.grid.util.Packet}.
+         */
+        @Nonnull
+        public static Packet pooled () {
+                return pooled (DEFAULT_POOLED_CAPACITY);
+        }
+
+        /**
+         * Creates an empty {@link rocks.spud.grid.util.Packet} backed by a pooled {@link io.netty.buffer.ByteBuf}.
+         *
+         * Note: The returned packet has to be released once it is no longer needed.
+         *
+         * @param initialCapacity The initial buffer capacity.
+         * @return The empty {@link rocks.spud.grid.util.Packet}.
+         */
+        @Nonnull
+        public static Packet pooled (@Nonnegative int initialCapacity) {
+                return (new Packet (PooledByteBufAllocator.DEFAULT.heapBuffer (initialCapacity)));
+        }
+
         /**
          * Reads a set of {@link rocks.spud.grid.api.ErrorCode}s.
          *
@@ -79,7 +153,16 @@ public class Packet {
          */
         @Nonnull
         public Set<ErrorCode> read () {
-                return ErrorCode.of (readInteger ());
+                return this.readErrorCode ();
+        }
+
+        /**
+         * Reads a {@link java.lang.Boolean}.
+         *
+         * @return The {@link java.lang.Boolean}.
+         */
+        public boolean readBoolean () {
+                return this.buffer ().readBoolean ();
         }
 
         /**
@@ -89,7 +172,7 @@ public class Packet {
          */
         @Nullable
         public boolean[] readBooleanArray () {
-                int length = this.buffer ().readUnsignedShort ();
+                int length = this.readVarInt ();
                 if (length == 0) { return null; }
 
                 boolean[] array = new boolean[length];
@@ -122,7 +205,7 @@ public class Packet {
          */
         @Nonnull
         public byte[] readBytes () {
-                int length = this.buffer ().readUnsignedShort ();
+                int length = this.readVarInt ();
                 if (length == 0) { return new byte[0]; }
 
                 byte[] bytes = new byte[length];
@@ -138,7 +221,7 @@ public class Packet {
          */
         @Nonnull
         public Set<ErrorCode> readErrorCode () {
-                return ErrorCode.of (this.readInteger ());
+                return ErrorCode.of (this.readVarInt ());
         }
 
         /**
@@ -175,7 +258,51 @@ public class Packet {
          */
         @Nonnull
         public String readString () {
-                return (new String (readBytes (), CHARSET));
+                return this.readString (this.readVarInt ());
+        }
+
+        /**
+         * Reads a length prefixed array of {@link java.lang.String}s.
+         *
+         * @return The array.
+         *
+         * @throws java.lang.IllegalStateException when the array length exceeds the remaining bytes.
+         */
+        @Nonnull
+        public String[] readStringArray () throws IllegalStateException {
+                int length = this.readVarInt ();
+                if (length < 0 || length > this.buffer ().readableBytes ()) { throw new IllegalStateException ("Malformed array: Length of " + length + " exceeds the remaining " + this.buffer ().readableBytes () + " bytes"); }
+
+                String[] array = new String[length];
+
+                for (int i = 0; i < length; i++) {
+                        array[i] = this.readString ();
+                }
+
+                return array;
+        }
+
+        /**
+         * Decodes a {@link java.lang.String} of the specified length directly from the buffer.
+         *
+         * @param length The encoded length in bytes.
+         * @return The {@link java.lang.String}.
+         */
+        @Nonnull
+        private String readString (@Nonnegative int length) {
+                if (length == 0) { return ""; }
+
+                ByteBuf buffer = this.buffer ();
+                String value;
+
+                if (buffer.hasArray ()) {
+                        value = new String (buffer.array (), (buffer.arrayOffset () + buffer.readerIndex ()), length, CHARSET);
+                } else {
+                        value = buffer.toString (buffer.readerIndex (), length, CHARSET);
+                }
+
+                buffer.skipBytes (length);
+                return value;
         }
 
         /**
@@ -188,6 +315,299 @@ public class Packet {
                 return (new UUID (this.readLong (), this.readLong ()));
         }
 
+        /**
+         * Reads a ZigZag encoded {@link java.lang.Integer} (see {@link #writeSignedVarInt(int)}).
+         *
+         * @return The {@link java.lang.Integer}.
+         */
+        public int readSignedVarInt () {
+                int value = this.readVarInt ();
+                return ((value >>> 1) ^ -(value & 0x1));
+        }
+
+        /**
+         * Reads a ZigZag encoded {@link java.lang.Long} (see {@link #writeSignedVarLong(long)}).
+         *
+         * @return The {@link java.lang.Long}.
+         */
+        public long readSignedVarLong () {
+                long value = this.readVarLong ();
+                return ((value >>> 1) ^ -(value & 0x1));
+        }
+
+        /**
+         * Reads a variable length {@link java.lang.Integer} (see {@link #writeVarInt(int)}).
+         *
+         * @return The {@link java.lang.Integer}.
+         *
+         * @throws java.lang.IllegalStateException when the encoded value exceeds 32 bits.
+         */
+        public int readVarInt () throws IllegalStateException {
+                int value = 0;
+
+                for (int shift = 0; shift < 35; shift += 7) {
+                        byte current = this.buffer ().readByte ();
+                        value |= ((current & 0x7F) << shift);
+
+                        if ((current & 0x80) == 0) { return value; }
+                }
+
+                throw new IllegalStateException ("Malformed VarInt: Value exceeds 32 bits");
+        }
+
+        /**
+         * Reads a length prefixed array of variable length {@link java.lang.Integer}s.
+         *
+         * @return The array.
+         *
+         * @throws java.lang.IllegalStateException when the array length exceeds the remaining bytes.
+         */
+        @Nonnull
+        public int[] readVarIntArray () throws IllegalStateException {
+                int length = this.readVarInt ();
+                if (length < 0 || length > this.buffer ().readableBytes ()) { throw new IllegalStateException ("Malformed array: Length of " + length + " exceeds the remaining " + this.buffer ().readableBytes () + " bytes"); }
+
+                int[] array = new int[length];
+
+                for (int i = 0; i < length; i++) {
+                        array[i] = this.readVarInt ();
+                }
+
+                return array;
+        }
+
+        /**
+         * Reads a variable length {@link java.lang.Long} (see {@link #writeVarLong(long)}).
+         *
+         * @return The {@link java.lang.Long}.
+         *
+         * @throws java.lang.IllegalStateException when the encoded value exceeds 64 bits.
+         */
+        public long readVarLong () throws IllegalStateException {
+                long value = 0;
+
+                for (int shift = 0; shift < 70; shift += 7) {
+                        byte current = this.buffer ().readByte ();
+                        value |= (((long) (current & 0x7F)) << shift);
+
+                        if ((current & 0x80) == 0) { return value; }
+                }
+
+                throw new IllegalStateException ("Malformed VarLong: Value exceeds 64 bits");
+        }
+
+        /**
+         * Decreases the reference count of the wrapped {@link io.netty.buffer.ByteBuf} and returns it to its pool once
+         * the count reaches zero.
+         *
+         * @return {@code true} if the buffer has been deallocated, {@code false} otherwise.
+         */
+        public boolean release () {
+                return this.buffer ().release ();
+        }
+
+        /**
+         * Increases the reference count of the wrapped {@link io.netty.buffer.ByteBuf}.
+         *
+         * @return The {@link rocks.spud.grid.util.Packet} instance.
+         */
+        @Nonnull
+        public Packet retain () {
+                this.buffer ().retain ();
+                return this;
+        }
+
+        /**
+         * Calculates the encoded size of an array of {@link java.lang.Boolean}s.
+         *
+         * @param array The array.
+         * @return The size in bytes.
+         */
+        @Nonnegative
+        public static int sizeOf (@Nullable boolean[] array) {
+                if (array == null) { return 1; }
+
+                int bytes = ((array.length / 8) + (array.length % 8 != 0 ? 1 : 0));
+                return (sizeOfVarInt (array.length) + bytes);
+        }
+
+        /**
+         * Calculates the encoded size of an array of {@link java.lang.Byte}s.
+         *
+         * @param array The array.
+         * @return The size in bytes.
+         */
+        @Nonnegative
+        public static int sizeOf (@Nullable byte[] array) {
+                if (array == null) { return 1; }
+                return (sizeOfVarInt (array.length) + array.length);
+        }
+
+        /**
+         * Calculates the encoded size of a {@link java.lang.String}.
+         *
+         * @param value The {@link java.lang.String}.
+         * @return The size in bytes.
+         */
+        @Nonnegative
+        public static int sizeOf (@Nullable String value) {
+                if (value == null) { return 1; }
+
+                int length = utf8Length (value);
+                return (sizeOfVarInt (length) + length);
+        }
+
+        /**
+         * Calculates the encoded size of a {@link java.util.UUID}.
+         *
+         * @param value The {@link java.util.UUID}.
+         * @return The size in bytes.
+         */
+        @Nonnegative
+        public static int sizeOf (@Nonnull UUID value) {
+                return (Long.BYTES * 2);
+        }
+
+        /**
+         * Calculates the encoded size of a set of {@link rocks.spud.grid.api.ErrorCode}s.
+         *
+         * @param codes The {@link rocks.spud.grid.api.ErrorCode} set.
+         * @return The size in bytes.
+         */
+        @Nonnegative
+        public static int sizeOf (@Nonnull ErrorCode... codes) {
+                return sizeOfVarInt (ErrorCode.of (codes));
+        }
+
+        /**
+         * Calculates the encoded size of a ZigZag encoded variable length {@link java.lang.Integer}.
+         *
+         * @param value The {@link java.lang.Integer}.
+         * @return The size in bytes.
+         */
+        @Nonnegative
+        public static int sizeOfSignedVarInt (int value) {
+                return sizeOfVarInt (((value << 1) ^ (value >> 31)));
+        }
+
+        /**
+         * Calculates the encoded size of a ZigZag encoded variable length {@link java.lang.Long}.
+         *
+         * @param value The {@link java.lang.Long}.
+         * @return The size in bytes.
+         */
+        @Nonnegative
+        public static int sizeOfSignedVarLong (long value) {
+                return sizeOfVarLong (((value << 1) ^ (value >> 63)));
+        }
+
+        /**
+         * Calculates the encoded size of a variable length {@link java.lang.Integer}.
+         *
+         * @param value The {@link java.lang.Integer}.
+         * @return The size in bytes.
+         */
+        @Nonnegative
+        public static int sizeOfVarInt (int value) {
+                if ((value & 0xFFFFFF80) == 0) { return 1; }
+                if ((value & 0xFFFFC000) == 0) { return 2; }
+                if ((value & 0xFFE00000) == 0) { return 3; }
+                if ((value & 0xF0000000) == 0) { return 4; }
+                return 5;
+        }
+
+        /**
+         * Calculates the encoded size of a length prefixed array of variable length {@link java.lang.Integer}s.
+         *
+         * @param array The array.
+         * @return The size in bytes.
+         */
+        @Nonnegative
+        public static int sizeOfVarIntArray (@Nullable int[] array) {
+                if (array == null) { return 1; }
+
+                int size = sizeOfVarInt (array.length);
+
+                for (int value : array) {
+                        size += sizeOfVarInt (value);
+                }
+
+                return size;
+        }
+
+        /**
+         * Calculates the encoded size of a length prefixed array of {@link java.lang.String}s.
+         *
+         * @param array The array.
+         * @return The size in bytes.
+         */
+        @Nonnegative
+        public static int sizeOfStringArray (@Nullable String[] array) {
+                if (array == null) { return 1; }
+
+                int size = sizeOfVarInt (array.length);
+
+                for (String value : array) {
+                        size += sizeOf (value);
+                }
+
+                return size;
+        }
+
+        /**
+         * Calculates the encoded size of a variable length {@link java.lang.Long}.
+         *
+         * @param value The {@link java.lang.Long}.
+         * @return The size in bytes.
+         */
+        @Nonnegative
+        public static int sizeOfVarLong (long value) {
+                int bytes = 1;
+
+                while ((value & 0xFFFFFFFFFFFFFF80L) != 0) {
+                        value >>>= 7;
+                        bytes++;
+                }
+
+                return bytes;
+        }
+
+        /**
+         * Calculates the amount of bytes needed to represent a sequence of characters in UTF-8 without actually encoding
+         * it.
+         *
+         * @param sequence The sequence.
+         * @return The amount of bytes.
+         */
+        @Nonnegative
+        public static int utf8Length (@Nonnull CharSequence sequence) {
+                int length = sequence.length ();
+                int bytes = length;
+
+                for (int i = 0; i < length; i++) {
+                        char c = sequence.charAt (i);
+
+                        if (c < 0x80) { continue; }
+                        if (c < 0x800) {
+                                bytes += 1;
+                                continue;
+                        }
+                        if (!Character.isSurrogate (c)) {
+                                bytes += 2;
+                                continue;
+                        }
+
+                        // surrogate pairs are encoded as a single four byte sequence while unpaired surrogates are
+                        // replaced by a single question mark
+                        if (Character.isHighSurrogate (c) && i + 1 < length && Character.isLowSurrogate (sequence.charAt (i + 1))) {
+                                bytes += 2;
+                                i++;
+                        }
+                }
+
+                return bytes;
+        }
+
         /**
          * Wraps a {@link io.netty.buffer.ByteBuf} instance.
          *
@@ -256,8 +676,7 @@ public class Packet {
         @Nonnull
         public Packet write (@Nullable boolean[] array) {
                 if (array == null || array.length == 0) {
-                        this.buffer ().writeShort (0);
-                        return this;
+                        return this.writeVarInt (0);
                 }
 
                 byte[] bytes = new byte[((array.length / 8) + (array.length % 8 != 0 ? 1 : 0))];
@@ -271,7 +690,7 @@ public class Packet {
                         bytes[index] |= (0x1 << offset);
                 }
 
-                this.buffer ().writeShort (array.length);
+                this.writeVarInt (array.length);
                 this.buffer ().writeBytes (bytes);
 
                 return this;
@@ -310,11 +729,10 @@ public class Packet {
         @Nonnull
         public Packet write (@Nullable byte[] array) {
                 if (array == null || array.length == 0) {
-                        this.buffer ().writeShort (0);
-                        return this;
+                        return this.writeVarInt (0);
                 }
 
-                this.buffer.writeShort (array.length);
+                this.writeVarInt (array.length);
                 this.buffer.writeBytes (array);
 
                 return this;
@@ -341,7 +759,7 @@ public class Packet {
         @Nonnull
         public Packet write (@Nullable String value) {
                 if (value == null) { return write (((byte[]) null)); }
-                return write (value.getBytes (CHARSET));
+                return this.writeUtf8 (value);
         }
 
         /**
@@ -352,6 +770,185 @@ public class Packet {
          */
         @Nonnull
         public Packet write (@Nonnull ErrorCode... codes) {
-                return write (ErrorCode.of (codes));
+                return this.writeVarInt (ErrorCode.of (codes));
+        }
+
+        /**
+         * Encodes a {@link java.lang.CharSequence} directly into the buffer.
+         *
+         * The width of the length prefix is derived from the lowest and highest possible encoded length. When both
+         * require the same amount of bytes, the prefix is reserved and patched once the sequence has been encoded.
+         * Otherwise the exact length is calculated beforehand. Either way the sequence is encoded without allocating any
+         * intermediary arrays and the prefix is encoded in its shortest form (thus matching {@link #sizeOf(String)}).
+         *
+         * @param sequence The sequence.
+         * @return The {@link rocks.spud.grid.util.Packet} instance.
+         */
+        @Nonnull
+        private Packet writeUtf8 (@Nonnull CharSequence sequence) {
+                ByteBuf buffer = this.buffer ();
+                int length = sequence.length ();
+                int prefixWidth = sizeOfVarInt (length);
+
+                if (prefixWidth != sizeOfVarInt ((length * 3))) {
+                        this.writeVarInt (utf8Length (sequence));
+                        this.encodeUtf8 (sequence);
+                        return this;
+                }
+
+                // reserve the worst case up front (without failing on exactly sized buffers which cannot grow)
+                buffer.ensureWritable ((prefixWidth + length * 3), false);
+
+                int prefixIndex = buffer.writerIndex ();
+                buffer.writeZero (prefixWidth);
+                this.encodeUtf8 (sequence);
+
+                int encodedLength = (buffer.writerIndex () - prefixIndex - prefixWidth);
+
+                for (int i = 0; i < prefixWidth; i++) {
+                        int group = ((encodedLength >>> (i * 7)) & 0x7F);
+                        buffer.setByte ((prefixIndex + i), (i + 1 < prefixWidth ? (group | 0x80) : group));
+                }
+
+                return this;
+        }
+
+        /**
+         * Encodes the characters of a {@link java.lang.CharSequence} in UTF-8 (without a length prefix).
+         *
+         * Unpaired surrogates are replaced by a question mark (the same way {@link java.lang.String#getBytes(Charset)}
+         * handles them).
+         *
+         * @param sequence The sequence.
+         */
+        private void encodeUtf8 (@Nonnull CharSequence sequence) {
+                ByteBuf buffer = this.buffer ();
+                int length = sequence.length ();
+
+                for (int i = 0; i < length; i++) {
+                        char c = sequence.charAt (i);
+
+                        if (c < 0x80) {
+                                buffer.writeByte (c);
+                        } else if (c < 0x800) {
+                                buffer.writeByte ((0xC0 | (c >> 6)));
+                                buffer.writeByte ((0x80 | (c & 0x3F)));
+                        } else if (!Character.isSurrogate (c)) {
+                                buffer.writeByte ((0xE0 | (c >> 12)));
+                                buffer.writeByte ((0x80 | ((c >> 6) & 0x3F)));
+                                buffer.writeByte ((0x80 | (c & 0x3F)));
+                        } else if (Character.isHighSurrogate (c) && i + 1 < length && Character.isLowSurrogate (sequence.charAt (i + 1))) {
+                                int codePoint = Character.toCodePoint (c, sequence.charAt (++i));
+
+                                buffer.writeByte ((0xF0 | (codePoint >> 18)));
+                                buffer.writeByte ((0x80 | ((codePoint >> 12) & 0x3F)));
+                                buffer.writeByte ((0x80 | ((codePoint >> 6) & 0x3F)));
+                                buffer.writeByte ((0x80 | (codePoint & 0x3F)));
+                        } else {
+                                buffer.writeByte ('?');
+                        }
+                }
+        }
+
+        /**
+         * Writes a ZigZag encoded variable length {@link java.lang.Integer}.
+         *
+         * In contrast to {@link #writeVarInt(int)} this method will encode small negative values efficiently.
+         *
+         * @param value The {@link java.lang.Integer}.
+         * @return The {@link rocks.spud.grid.util.Packet} instance.
+         */
+        @Nonnull
+        public Packet writeSignedVarInt (int value) {
+                return this.writeVarInt (((value << 1) ^ (value >> 31)));
+        }
+
+        /**
+         * Writes a ZigZag encoded variable length {@link java.lang.Long}.
+         *
+         * In contrast to {@link #writeVarLong(long)} this method will encode small negative values efficiently.
+         *
+         * @param value The {@link java.lang.Long}.
+         * @return The {@link rocks.spud.grid.util.Packet} instance.
+         */
+        @Nonnull
+        public Packet writeSignedVarLong (long value) {
+                return this.writeVarLong (((value << 1) ^ (value >> 63)));
+        }
+
+        /**
+         * Writes a variable length {@link java.lang.Integer}.
+         *
+         * Values are split into groups of seven bits (least significant group first) where the most significant bit of
+         * each byte indicates whether another group follows. Thus values below 128 will only occupy a single byte while
+         * negative values will always occupy five bytes.
+         *
+         * @param value The {@link java.lang.Integer}.
+         * @return The {@link rocks.spud.grid.util.Packet} instance.
+         */
+        @Nonnull
+        public Packet writeVarInt (int value) {
+                while ((value & 0xFFFFFF80) != 0) {
+                        this.buffer ().writeByte (((value & 0x7F) | 0x80));
+                        value >>>= 7;
+                }
+
+                this.buffer ().writeByte (value);
+                return this;
+        }
+
+        /**
+         * Writes a length prefixed array of {@link java.lang.String}s.
+         *
+         * @param array The array.
+         * @return The {@link rocks.spud.grid.util.Packet} instance.
+         */
+        @Nonnull
+        public Packet writeStringArray (@Nullable String[] array) {
+                if (array == null) { return this.writeVarInt (0); }
+
+                this.writeVarInt (array.length);
+
+                for (String value : array) {
+                        this.write (value);
+                }
+
+                return this;
+        }
+
+        /**
+         * Writes a length prefixed array of variable length {@link java.lang.Integer}s.
+         *
+         * @param array The array.
+         * @return The {@link rocks.spud.grid.util.Packet} instance.
+         */
+        @Nonnull
+        public Packet writeVarIntArray (@Nullable int[] array) {
+                if (array == null) { return this.writeVarInt (0); }
+
+                this.writeVarInt (array.length);
+
+                for (int value : array) {
+                        this.writeVarInt (value);
+                }
+
+                return this;
+        }
+
+        /**
+         * Writes a variable length {@link java.lang.Long} (see {@link #writeVarInt(int)}).
+         *
+         * @param value The {@link java.lang.Long}.
+         * @return The {@link rocks.spud.grid.util.Packet} instance.
+         */
+        @Nonnull
+        public Packet writeVarLong (long value) {
+                while ((value & 0xFFFFFFFFFFFFFF80L) != 0) {
+                        this.buffer ().writeByte (((int) (value & 0x7F) | 0x80));
+                        value >>>= 7;
+                }
+
+                this.buffer ().writeByte (((int) value));
+                return this;
         }
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field as part of a {@link rocks.spud.grid.annotation.Message}.
+ *
+ * Supported field types are {@code boolean}, {@code byte}, {@code short}, {@code int}, {@code long},
+ * {@link java.lang.String}, {@link java.util.UUID}, {@code byte[]}, {@code boolean[]}, {@code String[]} and
+ * {@code int[]} (the latter only with {@link rocks.spud.grid.annotation.Field.Encoding#VARIABLE} encoding). Annotated
+ * fields may not be private as they are accessed directly by the generated codec.
+ *
+ * @author Johannes Donath
+ */
+@Documented
+@Retention (RetentionPolicy.SOURCE)
+@Target (ElementType.FIELD)
+public @interface Field {
+
+        /**
+         * Defines the position of this field within the message.
+         *
+         * @return The position.
+         */
+        int value ();
+
+        /**
+         * Defines the encoding of this field (only applies to {@code int}, {@code int[]} and {@code long} fields).
+         *
+         * @return The encoding.
+         */
+        Encoding encoding () default Encoding.FIXED;
+
+        /**
+         * Provides a list of supported numeric encodings.
+         */
+        enum Encoding {
+
+                /**
+                 * Encodes values in their full width.
+                 */
+                FIXED,
+
+                /**
+                 * Encodes values as VarInts (or VarLongs respectively).
+                 */
+                VARIABLE,
+
+                /**
+                 * Encodes values as ZigZag encoded VarInts (or VarLongs respectively) which is favorable for small
+                 * negative values.
+                 */
+                ZIGZAG
+        }
+}
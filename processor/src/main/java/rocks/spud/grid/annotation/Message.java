@@ -0,0 +1,39 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class as a protocol message.
+ *
+ * A codec named {@code <SimpleName>Codec} is generated for every annotated class at compile time. The codec resides
+ * within the same package and provides static methods for encoding, decoding, measuring and skipping the message. All
+ * fields which are annotated with {@link rocks.spud.grid.annotation.Field} are encoded in ascending order. Annotated
+ * classes are required to declare a non-private constructor which accepts all fields in the very same order.
+ *
+ * @author Johannes Donath
+ */
+@Documented
+@Retention (RetentionPolicy.SOURCE)
+@Target (ElementType.TYPE)
+public @interface Message {
+}
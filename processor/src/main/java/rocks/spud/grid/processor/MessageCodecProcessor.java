@@ -0,0 +1,366 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.processor;
+
+import rocks.spud.grid.annotation.Field;
+import rocks.spud.grid.annotation.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates codecs for all classes annotated with {@link rocks.spud.grid.annotation.Message}.
+ *
+ * The generated code exclusively consists of static methods which directly call into the respective
+ * {@code rocks.spud.grid.util.Packet} methods. This keeps all call sites monomorphic and avoids any kind of reflection
+ * at runtime.
+ *
+ * @author Johannes Donath
+ */
+public class MessageCodecProcessor extends AbstractProcessor {
+        public static final String CODEC_SUFFIX = "Codec";
+        public static final String PACKET_TYPE = "rocks.spud.grid.util.Packet";
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public Set<String> getSupportedAnnotationTypes () {
+                return Collections.singleton (Message.class.getCanonicalName ());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Nonnull
+        @Override
+        public SourceVersion getSupportedSourceVersion () {
+                return SourceVersion.latestSupported ();
+        }
+
+        /**
+         * Retrieves the messager.
+         *
+         * @return The messager.
+         */
+        @Nonnull
+        private Messager messager () {
+                return this.processingEnv.getMessager ();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean process (@Nonnull Set<? extends TypeElement> annotations, @Nonnull RoundEnvironment roundEnvironment) {
+                for (Element element : roundEnvironment.getElementsAnnotatedWith (Message.class)) {
+                        if (element.getKind () != ElementKind.CLASS || ((TypeElement) element).getNestingKind () != NestingKind.TOP_LEVEL) {
+                                this.messager ().printMessage (Diagnostic.Kind.ERROR, "Messages are required to be top-level classes", element);
+                                continue;
+                        }
+
+                        TypeElement type = ((TypeElement) element);
+                        List<MessageField> fields = this.collectFields (type);
+
+                        if (fields == null || !this.verifyConstructor (type, fields)) { continue; }
+
+                        try {
+                                this.generateCodec (type, fields);
+                        } catch (IOException ex) {
+                                this.messager ().printMessage (Diagnostic.Kind.ERROR, "Could not write codec: " + ex.getMessage (), element);
+                        }
+                }
+
+                return true;
+        }
+
+        /**
+         * Collects all fields of a message in their encoding order.
+         *
+         * @param type The message type.
+         * @return The ordered list of fields or {@code null} if the message is invalid.
+         */
+        @Nullable
+        private List<MessageField> collectFields (@Nonnull TypeElement type) {
+                List<MessageField> fields = new ArrayList<> ();
+                boolean valid = true;
+
+                for (VariableElement element : ElementFilter.fieldsIn (type.getEnclosedElements ())) {
+                        Field annotation = element.getAnnotation (Field.class);
+                        if (annotation == null) { continue; }
+
+                        if (element.getModifiers ().contains (Modifier.PRIVATE) || element.getModifiers ().contains (Modifier.STATIC)) {
+                                this.messager ().printMessage (Diagnostic.Kind.ERROR, "Message fields may neither be private nor static", element);
+                                valid = false;
+                                continue;
+                        }
+
+                        WireType wireType = this.resolveWireType (element.asType (), annotation.encoding ());
+
+                        if (wireType == null) {
+                                this.messager ().printMessage (Diagnostic.Kind.ERROR, "Unsupported message field type " + element.asType () + " with " + annotation.encoding () + " encoding", element);
+                                valid = false;
+                                continue;
+                        }
+
+                        fields.add (new MessageField (element, annotation.value (), wireType));
+                }
+
+                fields.sort (Comparator.comparingInt (MessageField::position));
+
+                for (int i = 1; i < fields.size (); i++) {
+                        if (fields.get (i).position () == fields.get ((i - 1)).position ()) {
+                                this.messager ().printMessage (Diagnostic.Kind.ERROR, "Duplicate message field position " + fields.get (i).position (), fields.get (i).element ());
+                                valid = false;
+                        }
+                }
+
+                return (valid ? fields : null);
+        }
+
+        /**
+         * Generates the codec for a message.
+         *
+         * @param type   The message type.
+         * @param fields The ordered list of fields.
+         * @throws java.io.IOException when writing the source file fails.
+         */
+        private void generateCodec (@Nonnull TypeElement type, @Nonnull List<MessageField> fields) throws IOException {
+                PackageElement packageElement = this.processingEnv.getElementUtils ().getPackageOf (type);
+                String messageName = type.getSimpleName ().toString ();
+                String codecName = messageName + CODEC_SUFFIX;
+                String qualifiedName = (packageElement.isUnnamed () ? codecName : packageElement.getQualifiedName () + "." + codecName);
+
+                try (PrintWriter writer = new PrintWriter (this.processingEnv.getFiler ().createSourceFile (qualifiedName, type).openWriter ())) {
+                        if (!packageElement.isUnnamed ()) {
+                                writer.println ("package " + packageElement.getQualifiedName () + ";");
+                                writer.println ();
+                        }
+
+                        writer.println ("import " + PACKET_TYPE + ";");
+                        writer.println ();
+                        writer.println ("/**");
+                        writer.println (" * Encodes and decodes {@link " + type.getQualifiedName () + "} instances.");
+                        writer.println (" *");
+                        writer.println (" * Note: This class has been generated by {@code " + this.getClass ().getName () + "} and should not be edited.");
+                        writer.println (" */");
+                        writer.println ("public final class " + codecName + " {");
+                        writer.println ();
+                        writer.println ("        private " + codecName + " () {");
+                        writer.println ("        }");
+                        writer.println ();
+
+                        // decode
+                        writer.println ("        public static " + messageName + " decode (Packet packet) {");
+                        writer.print ("                return (new " + messageName + " (");
+
+                        for (int i = 0; i < fields.size (); i++) {
+                                if (i != 0) { writer.print (", "); }
+                                writer.print (fields.get (i).wireType ().decode ());
+                        }
+
+                        writer.println ("));");
+                        writer.println ("        }");
+                        writer.println ();
+
+                        // encode
+                        writer.println ("        public static Packet encode (Packet packet, " + messageName + " message) {");
+                        writer.print ("                return packet");
+
+                        for (MessageField field : fields) {
+                                writer.print ("." + field.wireType ().encode ("message." + field.name ()));
+                        }
+
+                        writer.println (";");
+                        writer.println ("        }");
+                        writer.println ();
+
+                        // sizeOf
+                        writer.println ("        public static int sizeOf (" + messageName + " message) {");
+                        writer.print ("                return (");
+
+                        if (fields.isEmpty ()) { writer.print ("0"); }
+
+                        for (int i = 0; i < fields.size (); i++) {
+                                if (i != 0) { writer.print (" + "); }
+                                writer.print (fields.get (i).wireType ().sizeOf ("message." + fields.get (i).name ()));
+                        }
+
+                        writer.println (");");
+                        writer.println ("        }");
+                        writer.println ();
+
+                        // skip
+                        writer.println ("        public static void skip (Packet packet) {");
+
+                        for (MessageField field : fields) {
+                                writer.println ("                " + field.wireType ().skip ());
+                        }
+
+                        writer.println ("        }");
+                        writer.println ("}");
+                }
+        }
+
+        /**
+         * Resolves the wire type of a field.
+         *
+         * @param type     The field type.
+         * @param encoding The requested encoding.
+         * @return The wire type or {@code null} if the combination is not supported.
+         */
+        @Nullable
+        private WireType resolveWireType (@Nonnull TypeMirror type, @Nonnull Field.Encoding encoding) {
+                switch (type.getKind ()) {
+                        case INT:
+                                switch (encoding) {
+                                        case VARIABLE:
+                                                return WireType.VAR_INT;
+                                        case ZIGZAG:
+                                                return WireType.SIGNED_VAR_INT;
+                                        default:
+                                                return WireType.INT;
+                                }
+                        case LONG:
+                                switch (encoding) {
+                                        case VARIABLE:
+                                                return WireType.VAR_LONG;
+                                        case ZIGZAG:
+                                                return WireType.SIGNED_VAR_LONG;
+                                        default:
+                                                return WireType.LONG;
+                                }
+                        case ARRAY:
+                                if (encoding == Field.Encoding.VARIABLE && ((ArrayType) type).getComponentType ().getKind () == TypeKind.INT) { return WireType.VAR_INT_ARRAY; }
+                                break;
+                }
+
+                // all remaining types only support their default encoding
+                if (encoding != Field.Encoding.FIXED) { return null; }
+
+                switch (type.getKind ()) {
+                        case BOOLEAN:
+                                return WireType.BOOLEAN;
+                        case BYTE:
+                                return WireType.BYTE;
+                        case SHORT:
+                                return WireType.SHORT;
+                        case ARRAY: {
+                                TypeMirror componentType = ((ArrayType) type).getComponentType ();
+                                TypeKind component = componentType.getKind ();
+
+                                if (component == TypeKind.BYTE) { return WireType.BYTES; }
+                                if (component == TypeKind.BOOLEAN) { return WireType.BOOLEAN_ARRAY; }
+                                if (component == TypeKind.DECLARED && String.class.getName ().equals (((TypeElement) ((DeclaredType) componentType).asElement ()).getQualifiedName ().toString ())) { return WireType.STRING_ARRAY; }
+                                return null;
+                        }
+                        case DECLARED: {
+                                String name = ((TypeElement) ((DeclaredType) type).asElement ()).getQualifiedName ().toString ();
+
+                                if (String.class.getName ().equals (name)) { return WireType.STRING; }
+                                if (java.util.UUID.class.getName ().equals (name)) { return WireType.UUID; }
+                                return null;
+                        }
+                }
+
+                return null;
+        }
+
+        /**
+         * Verifies whether a message declares a constructor which accepts all of its fields in order.
+         *
+         * @param type   The message type.
+         * @param fields The ordered list of fields.
+         * @return True if a matching constructor exists.
+         */
+        private boolean verifyConstructor (@Nonnull TypeElement type, @Nonnull List<MessageField> fields) {
+                for (ExecutableElement constructor : ElementFilter.constructorsIn (type.getEnclosedElements ())) {
+                        if (constructor.getModifiers ().contains (Modifier.PRIVATE) || constructor.getParameters ().size () != fields.size ()) { continue; }
+
+                        boolean matches = true;
+
+                        for (int i = 0; i < fields.size () && matches; i++) {
+                                matches = this.processingEnv.getTypeUtils ().isSameType (constructor.getParameters ().get (i).asType (), fields.get (i).element ().asType ());
+                        }
+
+                        if (matches) { return true; }
+                }
+
+                this.messager ().printMessage (Diagnostic.Kind.ERROR, "Messages are required to declare a non-private constructor which accepts all fields in order", type);
+                return false;
+        }
+
+        /**
+         * Represents a single message field.
+         */
+        private static final class MessageField {
+                private final VariableElement element;
+                private final int position;
+                private final WireType wireType;
+
+                MessageField (@Nonnull VariableElement element, int position, @Nonnull WireType wireType) {
+                        this.element = element;
+                        this.position = position;
+                        this.wireType = wireType;
+                }
+
+                @Nonnull
+                VariableElement element () {
+                        return this.element;
+                }
+
+                @Nonnull
+                String name () {
+                        return this.element.getSimpleName ().toString ();
+                }
+
+                int position () {
+                        return this.position;
+                }
+
+                @Nonnull
+                WireType wireType () {
+                        return this.wireType;
+                }
+        }
+}
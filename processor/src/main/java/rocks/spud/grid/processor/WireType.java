@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package rocks.spud.grid.processor;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Provides a list of wire types which may be used within generated message codecs.
+ *
+ * Each wire type provides code templates for encoding, decoding, measuring and skipping a single value of its type
+ * where {@code %s} refers to the value expression and {@code packet} refers to the packet in use.
+ *
+ * @author Johannes Donath
+ */
+enum WireType {
+        BOOLEAN ("write", "readBoolean", "1", "packet.buffer ().skipBytes (1);"),
+        BYTE ("write", "readByte", "1", "packet.buffer ().skipBytes (1);"),
+        SHORT ("write", "readShort", "Short.BYTES", "packet.buffer ().skipBytes (Short.BYTES);"),
+        INT ("write", "readInteger", "Integer.BYTES", "packet.buffer ().skipBytes (Integer.BYTES);"),
+        VAR_INT ("writeVarInt", "readVarInt", "Packet.sizeOfVarInt (%s)", "packet.readVarInt ();"),
+        SIGNED_VAR_INT ("writeSignedVarInt", "readSignedVarInt", "Packet.sizeOfSignedVarInt (%s)", "packet.readVarInt ();"),
+        LONG ("write", "readLong", "Long.BYTES", "packet.buffer ().skipBytes (Long.BYTES);"),
+        VAR_LONG ("writeVarLong", "readVarLong", "Packet.sizeOfVarLong (%s)", "packet.readVarLong ();"),
+        SIGNED_VAR_LONG ("writeSignedVarLong", "readSignedVarLong", "Packet.sizeOfSignedVarLong (%s)", "packet.readVarLong ();"),
+        STRING ("write", "readString", "Packet.sizeOf (%s)", "packet.buffer ().skipBytes (packet.readVarInt ());"),
+        UUID ("write", "readUUID", "(Long.BYTES * 2)", "packet.buffer ().skipBytes ((Long.BYTES * 2));"),
+        BYTES ("write", "readBytes", "Packet.sizeOf (%s)", "packet.buffer ().skipBytes (packet.readVarInt ());"),
+        BOOLEAN_ARRAY ("write", "readBooleanArray", "Packet.sizeOf (%s)", "packet.buffer ().skipBytes (((packet.readVarInt () + 7) / 8));"),
+        VAR_INT_ARRAY ("writeVarIntArray", "readVarIntArray", "Packet.sizeOfVarIntArray (%s)", "for (int i = packet.readVarInt (); i > 0; i--) { packet.readVarInt (); }"),
+        STRING_ARRAY ("writeStringArray", "readStringArray", "Packet.sizeOfStringArray (%s)", "for (int i = packet.readVarInt (); i > 0; i--) { packet.buffer ().skipBytes (packet.readVarInt ()); }");
+
+        private final String writeMethod;
+        private final String readMethod;
+        private final String sizeTemplate;
+        private final String skipStatement;
+
+        WireType (@Nonnull String writeMethod, @Nonnull String readMethod, @Nonnull String sizeTemplate, @Nonnull String skipStatement) {
+                this.writeMethod = writeMethod;
+                this.readMethod = readMethod;
+                this.sizeTemplate = sizeTemplate;
+                this.skipStatement = skipStatement;
+        }
+
+        /**
+         * Generates the expression which decodes a value from {@code packet}.
+         *
+         * @return The expression.
+         */
+        @Nonnull
+        public String decode () {
+                return "packet." + this.readMethod + " ()";
+        }
+
+        /**
+         * Generates the chained invocation which encodes a value.
+         *
+         * @param value The value expression.
+         * @return The invocation (without a leading dot).
+         */
+        @Nonnull
+        public String encode (@Nonnull String value) {
+                return this.writeMethod + " (" + value + ")";
+        }
+
+        /**
+         * Generates the expression which calculates the encoded size of a value.
+         *
+         * @param value The value expression.
+         * @return The expression.
+         */
+        @Nonnull
+        public String sizeOf (@Nonnull String value) {
+                return String.format (this.sizeTemplate, value);
+        }
+
+        /**
+         * Generates the statement which skips a value within {@code packet}.
+         *
+         * @return The statement.
+         */
+        @Nonnull
+        public String skip () {
+                return this.skipStatement;
+        }
+}